@@ -423,6 +423,144 @@ class TableChairDetector:
         cv2.imwrite(output_path, annotated_image)
         return output_path
 
+    def summarize_detections(self, image, image_path, detected_objects, objects_to_draw,
+                             camera_id=None, table_id=None, output_dir=None, annotate=True):
+        """
+        Turn zone-filtered detections into the service result (counts, occupancy, annotated image)
+
+        Args:
+            image: Original image
+            image_path: Path of the original image (used to name the annotated copy)
+            detected_objects: Zone-filtered detections used for counting
+            objects_to_draw: Detections drawn on the annotated image
+            camera_id: Camera identifier
+            table_id: Table identifier of the zone
+            output_dir: Directory to save the annotated image
+            annotate: If False, skip writing the annotated image (annotatedImagePath is None)
+
+        Returns:
+            dict: Analysis results in JSON-serializable format
+        """
+        # Count occupied seating for each type
+        occupied_chairs, unoccupied_chairs = self.count_occupied_seating(detected_objects, 'chair')
+        occupied_benches, unoccupied_benches = self.count_occupied_seating(detected_objects, 'bench')
+        occupied_couches, unoccupied_couches = self.count_occupied_seating(detected_objects, 'couch')
+
+        # Count sitting persons
+        persons = detected_objects["person"]
+        seats = detected_objects["chair"] + detected_objects["bench"] + detected_objects["couch"]
+        sitting_person_indices = set()
+
+        def iou(boxA, boxB):
+            xA = max(boxA["x1"], boxB["x1"])
+            yA = max(boxA["y1"], boxB["y1"])
+            xB = min(boxA["x2"], boxB["x2"])
+            yB = min(boxA["y2"], boxB["y2"])
+            interArea = max(0, xB - xA) * max(0, yB - yA)
+            boxAArea = (boxA["x2"] - boxA["x1"]) * (boxA["y2"] - boxA["y1"])
+            boxBArea = (boxB["x2"] - boxB["x1"]) * (boxB["y2"] - boxB["y1"])
+            unionArea = boxAArea + boxBArea - interArea
+            if unionArea == 0:
+                return 0
+            return interArea / unionArea
+
+        def center_distance(boxA, boxB):
+            cxA = (boxA["x1"] + boxA["x2"]) / 2
+            cyA = (boxA["y1"] + boxA["y2"]) / 2
+            cxB = (boxB["x1"] + boxB["x2"]) / 2
+            cyB = (boxB["y1"] + boxB["y2"]) / 2
+            return np.sqrt((cxA - cxB) ** 2 + (cyA - cyB) ** 2)
+
+        for p_idx, person in enumerate(persons):
+            for seat in seats:
+                if iou(seat, person) > self.iou_threshold or center_distance(seat, person) < self.proximity_threshold:
+                    sitting_person_indices.add(p_idx)
+                    break
+        persons_sitting = len(sitting_person_indices)
+
+        # Save annotated image
+        annotated_path = None
+        if annotate:
+            if output_dir is None:
+                output_dir = './labeled_images'
+            annotated_path = self.save_annotated_image(image, objects_to_draw, image_path, output_dir,
+                                                       camera_id, table_id)
+
+        height, width = image.shape[:2]
+
+        # Prepare results
+        results = {
+             "cameraId": camera_id,
+             "tableId": table_id,
+             "resolution": f"{width}x{height}",
+             "tablesDetected": len(detected_objects["dining table"]),
+             "chairsDetected": len(detected_objects["chair"]),
+             "benchesDetected": len(detected_objects["bench"]),
+             "couchesDetected": len(detected_objects["couch"]),
+             "personsDetected": len(detected_objects["person"]),
+             "totalDetected": sum(len(boxes) for boxes in detected_objects.values()),
+             "occupiedChairs": occupied_chairs,
+             "unoccupiedChairs": unoccupied_chairs,
+             "occupiedBenches": occupied_benches,
+             "unoccupiedBenches": unoccupied_benches,
+             "occupiedCouches": occupied_couches,
+             "unoccupiedCouches": unoccupied_couches,
+             "personsSitting": persons_sitting,
+             "annotatedImagePath": annotated_path,
+             "status": "COMPLETED"
+        }
+
+        return results
+
+    def process_image_for_zones(self, image_path, camera_id, zones, output_dir=None, image=None, annotate=True):
+        """
+        Run detection once and evaluate every table zone of a camera against the same detections
+
+        Args:
+            image_path: Path to input image file (only used for naming when image is given)
+            camera_id: Camera identifier
+            zones: list of dicts with "table_id" and "zone" (flat x1 y1 x2 y2 ... list)
+            output_dir: Directory to save output files (default: ./labeled_images)
+            image: Already decoded BGR image; skips reading image_path from disk
+            annotate: If False, no annotated images are written
+
+        Returns:
+            list: One result dict per zone, in the same format as process_image_for_service
+        """
+        if image is None:
+            image = cv2.imread(image_path)
+            if image is None:
+                raise ValueError(f"Cannot read image file: {image_path}")
+
+        # Single inference pass without zone filtering
+        all_detected_objects, _ = self.detect_image(image, None)
+
+        results = []
+        for zone_request in zones:
+            table_id = zone_request.get("table_id")
+            try:
+                zone = CameraZone(camera_id, parse_zone_points(zone_request["zone"]), table_id)
+                self.camera_zones[camera_id] = zone
+
+                zone_objects = {
+                    class_name: [dict(box, zone_percentage=zone.get_bbox_zone_percentage(box)) for box in boxes]
+                    for class_name, boxes in all_detected_objects.items()
+                }
+                detected_objects = self.filter_detections_by_zone(zone_objects, camera_id, self.zone_threshold)
+
+                results.append(self.summarize_detections(image, image_path, detected_objects, detected_objects,
+                                                         camera_id, table_id, output_dir, annotate))
+            except Exception as e:
+                results.append({
+                    "status": "error",
+                    "error_message": str(e),
+                    "image_path": image_path,
+                    "camera_id": camera_id,
+                    "tableId": table_id
+                })
+
+        return results
+
     def process_image_for_service(self, image_path, camera_id=None, show_all_detections=False, output_dir=None):
         """
         Process a single image and return results in JSON format
@@ -465,76 +603,10 @@ class TableChairDetector:
                         for box in boxes:
                             box["zone_percentage"] = zone.get_bbox_zone_percentage(box)
 
-            # Count seating around tables
-            seating_per_table = self.count_seating_around_tables(detected_objects)
-
-            # Count occupied seating for each type
-            occupied_chairs, unoccupied_chairs = self.count_occupied_seating(detected_objects, 'chair')
-            occupied_benches, unoccupied_benches = self.count_occupied_seating(detected_objects, 'bench')
-            occupied_couches, unoccupied_couches = self.count_occupied_seating(detected_objects, 'couch')
-
-            # Count sitting persons
-            persons = detected_objects["person"]
-            seats = detected_objects["chair"] + detected_objects["bench"] + detected_objects["couch"]
-            sitting_person_indices = set()
-
-            def iou(boxA, boxB):
-                xA = max(boxA["x1"], boxB["x1"])
-                yA = max(boxA["y1"], boxB["y1"])
-                xB = min(boxA["x2"], boxB["x2"])
-                yB = min(boxA["y2"], boxB["y2"])
-                interArea = max(0, xB - xA) * max(0, yB - yA)
-                boxAArea = (boxA["x2"] - boxA["x1"]) * (boxA["y2"] - boxA["y1"])
-                boxBArea = (boxB["x2"] - boxB["x1"]) * (boxB["y2"] - boxB["y1"])
-                unionArea = boxAArea + boxBArea - interArea
-                if unionArea == 0:
-                    return 0
-                return interArea / unionArea
-
-            def center_distance(boxA, boxB):
-                cxA = (boxA["x1"] + boxA["x2"]) / 2
-                cyA = (boxA["y1"] + boxA["y2"]) / 2
-                cxB = (boxB["x1"] + boxB["x2"]) / 2
-                cyB = (boxB["y1"] + boxB["y2"]) / 2
-                return np.sqrt((cxA - cxB) ** 2 + (cyA - cyB) ** 2)
-
-            for p_idx, person in enumerate(persons):
-                for seat in seats:
-                    if iou(seat, person) > self.iou_threshold or center_distance(seat, person) < self.proximity_threshold:
-                        sitting_person_indices.add(p_idx)
-                        break
-            persons_sitting = len(sitting_person_indices)
-
-            # Save annotated image
-            if output_dir is None:
-                output_dir = './labeled_images'
             # Use all_detected_objects for annotation if available, otherwise use filtered detected_objects
             objects_to_draw = all_detected_objects if all_detected_objects is not None else detected_objects
-            annotated_path = self.save_annotated_image(image, objects_to_draw, image_path, output_dir, camera_id, zone_table_id)
-
-            # Prepare results
-            results = {
-                 "cameraId": camera_id,
-                 "tableId": zone_table_id,
-                 "resolution": f"{width}x{height}",
-                 "tablesDetected": len(detected_objects["dining table"]),
-                 "chairsDetected": len(detected_objects["chair"]),
-                 "benchesDetected": len(detected_objects["bench"]),
-                 "couchesDetected": len(detected_objects["couch"]),
-                 "personsDetected": len(detected_objects["person"]),
-                 "totalDetected": sum(len(boxes) for boxes in detected_objects.values()),
-                 "occupiedChairs": occupied_chairs,
-                 "unoccupiedChairs": unoccupied_chairs,
-                 "occupiedBenches": occupied_benches,
-                 "unoccupiedBenches": unoccupied_benches,
-                 "occupiedCouches": occupied_couches,
-                 "unoccupiedCouches": unoccupied_couches,
-                 "personsSitting": persons_sitting,
-                 "annotatedImagePath": annotated_path,
-                 "status": "COMPLETED"
-            }
-
-            return results
+            return self.summarize_detections(image, image_path, detected_objects, objects_to_draw,
+                                             camera_id, zone_table_id, output_dir)
 
         except Exception as e:
             # Get table_id from camera zone if available for error reporting
@@ -550,6 +622,106 @@ class TableChairDetector:
                 "tableId": zone_table_id
             }
 
+def parse_zone_points(zone):
+    """Convert a flat [x1, y1, x2, y2, ...] list into polygon points"""
+    if len(zone) < 6 or len(zone) % 2 != 0:
+        raise ValueError("Zone must have at least 3 points (6 coordinates)")
+    return [(zone[i], zone[i + 1]) for i in range(0, len(zone), 2)]
+
+
+def read_raw_frame(stream, request):
+    """
+    Read the raw BGR frame that follows a request line announcing frame_width, frame_height and frame_bytes
+    """
+    width, height, size = request["frame_width"], request["frame_height"], request["frame_bytes"]
+    payload = stream.read(size)
+    if len(payload) != size:
+        raise EOFError(f"Expected {size} frame bytes, got {len(payload)}")
+    if size != width * height * 3:
+        raise ValueError(f"Frame of {size} bytes does not match {width}x{height} BGR")
+    return np.frombuffer(payload, dtype=np.uint8).reshape((height, width, 3))
+
+
+def analyze_request(detector, request, image=None):
+    """
+    Run a single analysis request inside a long-lived worker
+
+    Args:
+        detector: Warm TableChairDetector instance (model already loaded)
+        request: dict with image_path, camera_id, table_id, zone, confidence, zone_threshold, output_dir, show_all;
+                 or "zones" (list of {table_id, zone}) to evaluate all tables of the camera in one pass
+        image: Raw frame sent along with a "zones" request (see read_raw_frame); "annotate" controls output images
+
+    Returns:
+        dict: Analysis results in the same format as the one-shot CLI
+    """
+    camera_id = request.get("camera_id")
+    zone = request.get("zone")
+
+    detector.confidence_threshold = request.get("confidence", detector.confidence_threshold)
+    detector.zone_threshold = request.get("zone_threshold", detector.zone_threshold)
+
+    # Zones are per request; never leak a previous table polygon into this one
+    detector.camera_zones = {}
+
+    if request.get("zones") is not None:
+        results = detector.process_image_for_zones(request["image_path"], camera_id, request["zones"],
+                                                   request.get("output_dir"), image,
+                                                   request.get("annotate", True))
+        return {"status": "COMPLETED", "results": results}
+
+    if camera_id and zone:
+        detector.add_camera_zone(camera_id, parse_zone_points(zone), request.get("table_id"))
+
+    return detector.process_image_for_service(request["image_path"], camera_id,
+                                              request.get("show_all", False), request.get("output_dir"))
+
+
+def serve(args):
+    """
+    Worker mode: load the YOLO model once and answer one JSON request per stdin line.
+
+    Every response is written as a single JSON line carrying the caller's "requestId".
+    A {"op": "ping"} request is answered without running inference (used for health checks).
+    A request carrying "frame_bytes" is followed on stdin by that many raw BGR bytes, which are
+    analysed in memory instead of reading image_path from disk.
+    stdout is reserved for the protocol, so anything else the detector prints goes to stderr.
+    """
+    protocol_out = sys.stdout
+    sys.stdout = sys.stderr
+
+    def respond(payload):
+        protocol_out.write(json.dumps(payload) + "\n")
+        protocol_out.flush()
+
+    detector = TableChairDetector(confidence_threshold=args.confidence, zone_threshold=args.zone_threshold)
+    respond({"status": "READY", "pid": os.getpid()})
+
+    stdin = sys.stdin.buffer
+    for line in iter(stdin.readline, b""):
+        line = line.strip()
+        if not line:
+            continue
+
+        request_id = None
+        try:
+            request = json.loads(line)
+            request_id = request.get("id")
+            # Consume the payload before anything can fail, so the stream stays aligned on request lines
+            image = read_raw_frame(stdin, request) if request.get("frame_bytes") else None
+            if request.get("op") == "ping":
+                result = {"status": "PONG"}
+            else:
+                result = analyze_request(detector, request, image)
+        except EOFError:
+            break
+        except Exception as e:
+            result = {"status": "error", "error_message": str(e)}
+
+        result["requestId"] = request_id
+        respond(result)
+
+
 def main():
     parser = argparse.ArgumentParser(
         description='Detect objects with camera zone filtering',
@@ -562,12 +734,18 @@ Examples:
   # With camera zone (analyze only specific area):
   python analyze_video.py image.jpg --camera-id cam1 --table-id 1 --zone 100 200 400 200 400 500 100 500
 
+  # All tables of one camera with a single detection pass:
+  python analyze_video.py frame.jpg --camera-id cam1 --zones-json '[{"table_id": 1, "zone": [100, 200, 400, 200, 400, 500]}]'
+
   # Multiple cameras (run separately for each):
   python analyze_video.py frame1.jpg --camera-id cam1 --zone 100 150 400 150 400 500 100 500
   python analyze_video.py frame2.jpg --camera-id cam2 --zone 450 150 800 150 800 500 450 500
+
+  # Long-lived worker (model loaded once, one JSON request per stdin line):
+  python analyze_video.py --serve
         """
     )
-    parser.add_argument('image_path', help='Path to input image file')
+    parser.add_argument('image_path', nargs='?', help='Path to input image file')
     parser.add_argument('--camera-id', '-cam', default=None, help='Camera identifier (e.g., cam1, cam2)')
     parser.add_argument('--zone', nargs='+', type=int, help='Zone coordinates as: x1 y1 x2 y2 x3 y3 x4 y4 (minimum 6 values for 3 corners)')
     parser.add_argument('--table-id', type=int, default=None, help='Table ID this camera monitors')
@@ -576,21 +754,32 @@ Examples:
     parser.add_argument('--show-all', action='store_true', help='Show all detected objects in annotated image (even those outside zone)')
     parser.add_argument('--output-json', action='store_true', help='Output results in JSON format (default: always outputs JSON)')
     parser.add_argument('--output-dir', '-o', default=None, help='Directory to save output files (default: ./labeled_images)')
+    parser.add_argument('--zones-json', default=None, help='JSON list of {"table_id": n, "zone": [x1, y1, ...]} evaluated in a single detection pass')
+    parser.add_argument('--serve', action='store_true', help='Run as a long-lived worker reading JSON requests from stdin')
 
     args = parser.parse_args()
 
+    if args.serve:
+        serve(args)
+        return
+
+    if not args.image_path:
+        parser.error("image_path is required unless --serve is given")
+
     try:
         # Initialize detector
         detector = TableChairDetector(confidence_threshold=args.confidence, zone_threshold=args.zone_threshold)
 
+        # Evaluate all table zones of the camera with one inference
+        if args.zones_json:
+            results = detector.process_image_for_zones(args.image_path, args.camera_id,
+                                                       json.loads(args.zones_json), args.output_dir)
+            print(json.dumps({"status": "COMPLETED", "results": results}, indent=2))
+            sys.exit(0)
+
         # Add camera zone if provided
         if args.camera_id and args.zone:
-            if len(args.zone) < 6 or len(args.zone) % 2 != 0:
-                raise ValueError("Zone must have at least 3 points (6 coordinates)")
-
-            # Convert flat list to list of tuples
-            zone_points = [(args.zone[i], args.zone[i+1]) for i in range(0, len(args.zone), 2)]
-            detector.add_camera_zone(args.camera_id, zone_points, args.table_id)
+            detector.add_camera_zone(args.camera_id, parse_zone_points(args.zone), args.table_id)
 
         # Process image
         results = detector.process_image_for_service(args.image_path, args.camera_id, args.show_all, args.output_dir)
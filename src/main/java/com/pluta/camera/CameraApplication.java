@@ -2,12 +2,14 @@ package com.pluta.camera;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
 @EnableAsync
 @EnableJpaRepositories
+@EnableFeignClients
 public class CameraApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,74 @@
+package com.pluta.camera.clients;
+
+import feign.RetryableException;
+import feign.Retryer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries a Feign call a bounded number of times with full-jitter exponential backoff, so clients that failed
+ * together do not come back together. A retry is only started if it can finish, read timeout included, within
+ * the call's overall deadline.
+ * <p>
+ * Feign clones the retryer for every call, so the attempt count and deadline are per call.
+ */
+public class JitteredRetryer implements Retryer {
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long deadlineMs;
+    private final long attemptTimeoutMs;
+
+    private final long startedNanos;
+    private int attempt = 1;
+
+    /**
+     * @param attemptTimeoutMs longest a single attempt can take, normally the read timeout
+     */
+    public JitteredRetryer(int maxAttempts, long initialBackoffMs, long maxBackoffMs, long deadlineMs,
+                           long attemptTimeoutMs) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.deadlineMs = deadlineMs;
+        this.attemptTimeoutMs = attemptTimeoutMs;
+        this.startedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (attempt >= maxAttempts) {
+            throw e;
+        }
+
+        long backoffMs = backoffMs(e);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        if (elapsedMs + backoffMs + attemptTimeoutMs > deadlineMs) {
+            throw e;
+        }
+
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        attempt++;
+    }
+
+    private long backoffMs(RetryableException e) {
+        // Honour the server's Retry-After when it sent one
+        if (e.retryAfter() != null) {
+            return Math.min(maxBackoffMs, Math.max(0, e.retryAfter() - System.currentTimeMillis()));
+        }
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    @Override
+    public Retryer clone() {
+        return new JitteredRetryer(maxAttempts, initialBackoffMs, maxBackoffMs, deadlineMs, attemptTimeoutMs);
+    }
+}
@@ -0,0 +1,155 @@
+package com.pluta.camera.clients;
+
+import com.pluta.camera.exceptions.RemoteAnalysisUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feign transport decorator that isolates every analysis endpoint (scheme, host, port and path) behind its own
+ * bulkhead and circuit breaker.
+ * <p>
+ * The bulkhead caps the calls in flight to one endpoint; a caller that cannot get a permit within
+ * {@code maxWaitMs} is turned away instead of queueing, so a slow inference server holds at most that many
+ * caller threads. After {@code failureThreshold} consecutive failures (I/O errors or 5xx) the circuit opens and
+ * calls fail immediately for {@code openMs}; after that calls go through again, and the first failure re-opens
+ * it until a success resets the count.
+ * <p>
+ * Response bodies are read while the permit is held so the whole exchange counts against the bulkhead.
+ */
+@Slf4j
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public ResilientFeignClient(Client delegate, int maxConcurrentCalls, long maxWaitMs, int failureThreshold,
+                                long openMs, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointKey(request.url()), Endpoint::new);
+
+        if (System.nanoTime() < endpoint.openUntilNanos) {
+            endpoint.circuitRejections.increment();
+            throw new RemoteAnalysisUnavailableException("Circuit open for " + endpoint.key, endpoint.key);
+        }
+        if (!acquire(endpoint)) {
+            endpoint.bulkheadRejections.increment();
+            throw new RemoteAnalysisUnavailableException(
+                    "Too many concurrent calls to " + endpoint.key + " (" + maxConcurrentCalls + ")", endpoint.key);
+        }
+
+        try {
+            Response response = buffered(delegate.execute(request, options));
+            if (response.status() >= 500) {
+                endpoint.failure();
+            } else {
+                endpoint.success();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            endpoint.failure();
+            throw e;
+        } finally {
+            endpoint.permits.release();
+        }
+    }
+
+    /**
+     * Calls currently in flight to the endpoint, for tests and diagnostics.
+     */
+    public int inFlight(String url) {
+        Endpoint endpoint = endpoints.get(endpointKey(url));
+        return endpoint == null ? 0 : maxConcurrentCalls - endpoint.permits.availablePermits();
+    }
+
+    private boolean acquire(Endpoint endpoint) {
+        try {
+            return endpoint.permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Response buffered(Response response) throws IOException {
+        if (response.body() == null) {
+            return response;
+        }
+        try (InputStream in = response.body().asInputStream()) {
+            return response.toBuilder().body(Util.toByteArray(in)).build();
+        }
+    }
+
+    private static String endpointKey(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority() + (uri.getPath() == null ? "" : uri.getPath());
+    }
+
+    private final class Endpoint {
+
+        private final String key;
+        private final Semaphore permits = new Semaphore(maxConcurrentCalls);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final Counter bulkheadRejections;
+        private final Counter circuitRejections;
+        private volatile long openUntilNanos = Long.MIN_VALUE;
+
+        private Endpoint(String key) {
+            this.key = key;
+            this.bulkheadRejections = rejections(key, "bulkhead_full");
+            this.circuitRejections = rejections(key, "circuit_open");
+        }
+
+        private void success() {
+            consecutiveFailures.set(0);
+        }
+
+        private void failure() {
+            int failures = consecutiveFailures.incrementAndGet();
+            if (failures >= failureThreshold) {
+                long now = System.nanoTime();
+                if (now >= openUntilNanos) {
+                    log.warn("Opening circuit for {} for {} ms after {} consecutive failures", key,
+                            TimeUnit.NANOSECONDS.toMillis(openNanos), failures);
+                }
+                openUntilNanos = now + openNanos;
+            }
+        }
+    }
+
+    private Counter rejections(String endpoint, String reason) {
+        return Counter.builder("stream.analysis.client.rejected")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .description("Remote analysis calls refused locally before being sent")
+                .register(meterRegistry);
+    }
+}
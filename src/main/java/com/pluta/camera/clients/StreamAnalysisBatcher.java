@@ -0,0 +1,178 @@
+package com.pluta.camera.clients;
+
+import com.pluta.camera.configs.BlockingIoThreads;
+import com.pluta.camera.dtos.FrameAnalysisResultDTO;
+import com.pluta.camera.dtos.StreamAnalysisRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching front for {@link StreamAnalysisClient}. Callers submit single requests and get a future; a
+ * dispatcher thread collects them until {@code max-size} requests are waiting or {@code max-wait-ms} has passed
+ * since the first one arrived, sends them in one {@link StreamAnalysisClient#analyzeStreams} call and completes
+ * each caller's future with its own result.
+ * <p>
+ * Batches are sent from a small pool. When every sender is busy the dispatcher sends the batch itself, and
+ * requests keep accumulating meanwhile, so batches grow under load instead of calls piling up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StreamAnalysisBatcher {
+
+    private final StreamAnalysisClient streamAnalysisClient;
+    private final MeterRegistry meterRegistry;
+    private final BlockingIoThreads blockingIoThreads;
+
+    @Value("${stream.analysis.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stream.analysis.batch.max-size:32}")
+    private int maxSize;
+
+    @Value("${stream.analysis.batch.max-wait-ms:20}")
+    private long maxWaitMs;
+
+    @Value("${stream.analysis.batch.max-pending:1024}")
+    private int maxPending;
+
+    @Value("${stream.analysis.batch.sender-threads:4}")
+    private int senderThreads;
+
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    private BlockingQueue<Pending> pending;
+    private ThreadPoolExecutor senders;
+    private Thread dispatcher;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        pending = new ArrayBlockingQueue<>(maxPending);
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), blockingIoThreads.threadFactory("AnalysisBatchSender-", true),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        batchSizes = DistributionSummary.builder("stream.analysis.batch.size")
+                .description("Requests sent per batched analysis call")
+                .register(meterRegistry);
+        Gauge.builder("stream.analysis.batch.pending", this, batcher -> batcher.pending.size())
+                .description("Analysis requests waiting to be batched")
+                .register(meterRegistry);
+
+        if (enabled) {
+            dispatcher = daemon(this::dispatch, "AnalysisBatcher-");
+            dispatcher.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        senders.shutdown();
+        List<Pending> abandoned = new ArrayList<>();
+        pending.drainTo(abandoned);
+        abandoned.forEach(p -> p.result.completeExceptionally(
+                new RejectedExecutionException("Analysis batcher is shutting down")));
+    }
+
+    /**
+     * Queues one request for the next batch. With batching disabled the request is sent on its own.
+     */
+    public CompletableFuture<FrameAnalysisResultDTO> submit(StreamAnalysisRequest request) {
+        if (!enabled) {
+            return CompletableFuture.supplyAsync(() -> streamAnalysisClient.analyzeStream(request).getBody(),
+                    senders);
+        }
+        Pending entry = new Pending(request, new CompletableFuture<>());
+        if (!pending.offer(entry)) {
+            entry.result.completeExceptionally(new RejectedExecutionException(
+                    "More than " + maxPending + " analysis requests waiting"));
+        }
+        return entry.result;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Pending> batch = collect();
+                senders.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Analysis batch dispatch failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Blocks for the first request, then takes more until the batch is full or the first one has waited
+     * {@code max-wait-ms}.
+     */
+    private List<Pending> collect() throws InterruptedException {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        batch.add(pending.take());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (batch.size() < maxSize) {
+            pending.drainTo(batch, maxSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxSize || remaining <= 0) {
+                break;
+            }
+            Pending next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        List<StreamAnalysisRequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(p -> requests.add(p.request));
+        try {
+            List<FrameAnalysisResultDTO> results = streamAnalysisClient.analyzeStreams(requests).getBody();
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Batch of " + batch.size() + " analysis requests returned "
+                        + (results == null ? 0 : results.size()) + " results");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batched analysis of {} requests failed: {}", batch.size(), e.getMessage());
+            batch.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    private Thread daemon(Runnable runnable, String prefix) {
+        Thread thread = new Thread(runnable, prefix + threadSequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Pending(StreamAnalysisRequest request, CompletableFuture<FrameAnalysisResultDTO> result) {
+    }
+}
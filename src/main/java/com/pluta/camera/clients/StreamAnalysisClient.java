@@ -8,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(
         name = "stream-analysis-client",
         url = "${stream.analysis.api.url}",
@@ -22,4 +24,12 @@ public interface StreamAnalysisClient {
      */
     @PostMapping
     ResponseEntity<FrameAnalysisResultDTO> analyzeStream(@RequestBody StreamAnalysisRequest request);
+
+    /**
+     * Analyses several requests in one call so the inference server can batch them on the GPU
+     * @param requests The requests to analyse
+     * @return One result per request, in request order
+     */
+    @PostMapping("/batch")
+    ResponseEntity<List<FrameAnalysisResultDTO>> analyzeStreams(@RequestBody List<StreamAnalysisRequest> requests);
 }
\ No newline at end of file
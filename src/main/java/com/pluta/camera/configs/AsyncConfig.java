@@ -1,24 +1,60 @@
 package com.pluta.camera.configs;
 
+import com.pluta.camera.context.TenantContextTaskDecorator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * Executors for {@code @Async} work and widget batches. In virtual-thread mode each task gets its own virtual
+ * thread and the pool sizes no longer apply: the Hikari pool, which every task needs a connection from, is what
+ * bounds concurrency.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
     @Bean(name = "analysisTaskExecutor")
-    public Executor analysisTaskExecutor() {
+    public Executor analysisTaskExecutor(BlockingIoThreads blockingIoThreads) {
+        if (blockingIoThreads.isVirtual()) {
+            return virtualExecutor("Analysis-");
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("Analysis-");
+        executor.setTaskDecorator(new TenantContextTaskDecorator());
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    @Bean(name = "widgetBatchTaskExecutor")
+    public Executor widgetBatchTaskExecutor(@Value("${widget.batch.pool-size:8}") int poolSize,
+                                            @Value("${widget.batch.queue-capacity:200}") int queueCapacity,
+                                            BlockingIoThreads blockingIoThreads) {
+        if (blockingIoThreads.isVirtual()) {
+            return virtualExecutor("WidgetBatch-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("WidgetBatch-");
+        executor.setTaskDecorator(new TenantContextTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    private static Executor virtualExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new TenantContextTaskDecorator());
+        return executor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.pluta.camera.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for work that spends its time blocked on I/O: remote calls, JDBC, external processes.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on Java 21 or later, the same switch that moves Tomcat and the
+ * scheduler onto virtual threads, these are virtual threads; otherwise they are ordinary platform threads. Callers
+ * keep whatever bound they put on concurrency, so only the cost of a blocked thread changes.
+ */
+@Component
+@Slf4j
+public class BlockingIoThreads {
+
+    private final boolean virtual;
+
+    public BlockingIoThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (!virtual && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; using platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @param prefix thread name prefix, followed by a sequence number
+     * @param daemon whether platform threads are daemons; virtual threads always are
+     */
+    public ThreadFactory threadFactory(String prefix, boolean daemon) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+}
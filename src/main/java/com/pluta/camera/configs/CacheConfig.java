@@ -12,6 +12,7 @@ public class CacheConfig{
 
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("dashboard-data", "widget-data");
+        // Widget results are cached by WidgetResultCache, which needs per-entry TTLs and a size bound
+        return new ConcurrentMapCacheManager("dashboard-data");
     }
 }
\ No newline at end of file
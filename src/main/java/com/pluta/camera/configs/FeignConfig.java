@@ -1,26 +1,118 @@
 package com.pluta.camera.configs;
 
+import com.pluta.camera.clients.JitteredRetryer;
+import com.pluta.camera.clients.ResilientFeignClient;
+import feign.Client;
 import feign.Logger;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
 import feign.codec.ErrorDecoder;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport for the remote analysis clients: pooled keep-alive HTTP/2 connections (falling back to HTTP/1.1
+ * when the server does not upgrade), per-attempt timeouts inside an overall call deadline, bounded jittered
+ * retries of transient failures, and a bulkhead plus circuit breaker per endpoint.
+ */
 @Configuration
 @Slf4j
 public class FeignConfig {
 
+    @Value("${stream.analysis.client.log-level:BASIC}")
+    private Logger.Level logLevel;
+
+    @Value("${stream.analysis.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    // Per attempt; retries only start if they fit within deadline-ms
+    @Value("${stream.analysis.client.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${stream.analysis.client.deadline-ms:25000}")
+    private long deadlineMs;
+
+    @Value("${stream.analysis.client.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${stream.analysis.client.retry.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${stream.analysis.client.retry.max-backoff-ms:2000}")
+    private long maxBackoffMs;
+
+    @Value("${stream.analysis.client.bulkhead.max-concurrent-calls:16}")
+    private int maxConcurrentCalls;
+
+    @Value("${stream.analysis.client.bulkhead.max-wait-ms:100}")
+    private long maxWaitMs;
+
+    @Value("${stream.analysis.client.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${stream.analysis.client.circuit-breaker.open-ms:30000}")
+    private long openMs;
+
+    /**
+     * Request and response lines only; FULL would log every base64 frame on the hot path.
+     */
     @Bean
     public Logger.Level feignLoggerLevel() {
-        return Logger.Level.FULL;
+        return logLevel;
     }
 
+    @Bean
+    public Client feignClient(MeterRegistry meterRegistry) {
+        // One shared HttpClient keeps connections alive and multiplexes calls over HTTP/2 where offered
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        return new ResilientFeignClient(new Http2Client(httpClient), maxConcurrentCalls, maxWaitMs,
+                failureThreshold, openMs, meterRegistry);
+    }
+
+    @Bean
+    public Request.Options feignOptions() {
+        return new Request.Options(connectTimeoutMs, TimeUnit.MILLISECONDS, readTimeoutMs, TimeUnit.MILLISECONDS,
+                false);
+    }
+
+    @Bean
+    public Retryer feignRetryer() {
+        return new JitteredRetryer(maxAttempts, initialBackoffMs, maxBackoffMs, deadlineMs, readTimeoutMs);
+    }
+
+    /**
+     * Overload and gateway errors are worth another attempt; other errors are not. Analysis calls have no side
+     * effects, so retrying a POST is safe.
+     */
     @Bean
     public ErrorDecoder errorDecoder() {
+        ErrorDecoder defaultDecoder = new ErrorDecoder.Default();
         return (methodKey, response) -> {
             log.error("Feign client error - Method: {}, Status: {}, Reason: {}",
                     methodKey, response.status(), response.reason());
-            return new ErrorDecoder.Default().decode(methodKey, response);
+            Exception decoded = defaultDecoder.decode(methodKey, response);
+            if (decoded instanceof RetryableException || !isTransient(response.status())) {
+                return decoded;
+            }
+            return new RetryableException(response.status(), decoded.getMessage(),
+                    response.request().httpMethod(), decoded, (Long) null, response.request());
         };
     }
-}
\ No newline at end of file
+
+    private static boolean isTransient(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+}
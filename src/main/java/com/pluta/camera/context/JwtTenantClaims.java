@@ -0,0 +1,48 @@
+package com.pluta.camera.context;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the tenant and allowed branches from a Keycloak access token, for both HTTP requests and WebSocket
+ * sessions.
+ */
+@Slf4j
+public final class JwtTenantClaims {
+
+    public static final String BRANCH_CLAIM = "branchId";
+
+    private JwtTenantClaims() {
+    }
+
+    public static String tenantId(Jwt jwt) {
+        try {
+            var tenantClaim = jwt.getClaimAsMap("tenant");
+            if (tenantClaim != null && !tenantClaim.isEmpty()) {
+                // Get first tenant key (e.g., "tenant_a")
+                String firstKey = tenantClaim.keySet().iterator().next();
+                var tenantData = (Map<String, Object>) tenantClaim.get(firstKey);
+
+                if (tenantData != null && tenantData.containsKey("id")) {
+                    Object idValue = tenantData.get("id");
+                    if (idValue instanceof List) {
+                        List<String> idList = (List<String>) idValue;
+                        return idList.isEmpty() ? null : idList.get(0);
+                    } else if (idValue instanceof String) {
+                        return (String) idValue;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to extract tenant ID from JWT: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    public static List<String> branchIds(Jwt jwt) {
+        return jwt.getClaimAsStringList(BRANCH_CLAIM);
+    }
+}
@@ -0,0 +1,25 @@
+package com.pluta.camera.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the submitting thread's {@link TenantContext} onto pooled worker threads and clears it afterwards, so
+ * one request's tenant never leaks into the next task on the same thread.
+ */
+public class TenantContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        TenantContext.TenantInfo tenantInfo = TenantContext.getTenantInfo();
+        return () -> {
+            if (tenantInfo != null) {
+                TenantContext.setTenantInfo(tenantInfo.tenantId(), tenantInfo.branchId());
+            }
+            try {
+                runnable.run();
+            } finally {
+                TenantContext.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.pluta.camera.controllers;
+
+import com.pluta.camera.context.TenantContext;
+import com.pluta.camera.dtos.FrameExportFilter;
+import com.pluta.camera.enums.ExportFormat;
+import com.pluta.camera.services.export.FrameExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
+
+@RestController
+@RequestMapping("/v1/frames/export")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Frame Export", description = "APIs for bulk export of frame analytics")
+@PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+public class FrameExportController {
+
+    private final FrameExportService frameExportService;
+
+    @GetMapping
+    @Operation(summary = "Stream the tenant's frame rows as NDJSON or CSV, oldest first")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) Long cameraId,
+            @RequestParam(required = false) Long tableId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+
+        // Exports are limited to the branch the request was authorized for
+        Long callerBranchId = TenantContext.getBranchId();
+        if (branchId != null && !branchId.equals(callerBranchId)) {
+            log.warn("Access denied: frame export for branch {} requested from branch {}", branchId, callerBranchId);
+            throw new AuthorizationDeniedException("Branch not authorized for this user");
+        }
+
+        // Resolved here: the body is written on an async thread without the tenant context
+        FrameExportFilter filter = FrameExportFilter.builder()
+                .tenantId(TenantContext.getTenantId())
+                .branchId(callerBranchId)
+                .cameraId(cameraId)
+                .tableId(tableId)
+                .from(from)
+                .to(to)
+                .build();
+        log.debug("REST request to export frames: {}", filter);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"frames." + format.getExtension() + "\"")
+                .body(frameExportService.export(filter, format));
+    }
+}
@@ -1,11 +1,13 @@
 package com.pluta.camera.controllers;
 
 import com.pluta.camera.dtos.AnalysisResultDTO;
+import com.pluta.camera.dtos.CursorPageDTO;
 import com.pluta.camera.dtos.ImageAnalysisRequest;
 import com.pluta.camera.dtos.ImageAnalysisResponse;
 import com.pluta.camera.entities.ImageAnalysisResult;
 import com.pluta.camera.enums.AnalysisStatus;
 import com.pluta.camera.services.ImageAnalysisService;
+import com.pluta.camera.utils.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -59,6 +61,14 @@ public class ImageAnalysisController {
         return ResponseEntity.ok(results);
     }
 
+    @GetMapping("/video/{videoId}/results/scroll")
+    public ResponseEntity<CursorPageDTO<AnalysisResultDTO>> scrollResults(
+            @PathVariable Long videoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(analysisService.scrollAnalysisResults(videoId, cursor, size));
+    }
+
     @GetMapping("/results/{id}")
     public ResponseEntity<ImageAnalysisResult> getResult(@PathVariable Long id) {
         Optional<ImageAnalysisResult> result = analysisService.getAnalysisResult(id);
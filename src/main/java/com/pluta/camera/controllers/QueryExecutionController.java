@@ -1,5 +1,7 @@
 package com.pluta.camera.controllers;
 
+import com.pluta.camera.dtos.QueryResultDTO;
+import com.pluta.camera.dtos.WidgetGroupExecutionDTO;
 import com.pluta.camera.services.QueryExecutionService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -8,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,9 +23,16 @@ public class QueryExecutionController {
     private final QueryExecutionService queryExecutionService;
 
     @PostMapping("/{queryName}/execute")
-    public ResponseEntity<List<Map<String , Object>>> execute(
+    public ResponseEntity<QueryResultDTO> execute(
             @PathVariable String queryName,
             @RequestBody Map<String, Object> params) {
         return ResponseEntity.ok( queryExecutionService.executeQuery(queryName, params));
     }
+
+    @PostMapping("/widget-groups/{widgetGroupId}/execute")
+    public ResponseEntity<WidgetGroupExecutionDTO> executeWidgetGroup(
+            @PathVariable Long widgetGroupId,
+            @RequestBody(required = false) Map<String, Object> params) {
+        return ResponseEntity.ok(queryExecutionService.executeWidgetGroup(widgetGroupId, params));
+    }
 }
@@ -1,9 +1,12 @@
 package com.pluta.camera.controllers;
 
 import com.pluta.camera.context.TenantContext;
+import com.pluta.camera.dtos.CursorPageDTO;
 import com.pluta.camera.dtos.VideoResponseDto;
 import com.pluta.camera.services.VideoProcessingService;
+import com.pluta.camera.utils.KeysetPagination;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -31,6 +34,7 @@ public class VideoController {
 
     @PostMapping(path = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload video based on specific zone and camera")
+    @ApiResponse(responseCode = "429", description = "Video processing queue is full; retry after the Retry-After delay")
     @PreAuthorize("hasRole('video-upload')")
     public ResponseEntity<Map<String, Object>> uploadVideo(@RequestParam("file") MultipartFile file,
                                                            @RequestParam("zoneId") Long zoneId,
@@ -77,6 +81,15 @@ public class VideoController {
         return ResponseEntity.ok(videos);
     }
 
+    @GetMapping("/by-tenant-branch/scroll")
+    @Operation(summary = "Get videos by tenant ID and branch ID, newest first, using a continuation cursor")
+    public ResponseEntity<CursorPageDTO<VideoResponseDto>> scrollVideos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(videoProcessingService.scrollVideosByTenantAndBranch(cursor, size,
+                TenantContext.getTenantId(), TenantContext.getBranchId()));
+    }
+
     @GetMapping("/{videoId}")
     public ResponseEntity<VideoResponseDto> getVideoDetails(@PathVariable Long videoId) {
         try {
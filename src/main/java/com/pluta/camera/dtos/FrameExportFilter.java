@@ -0,0 +1,24 @@
+package com.pluta.camera.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Optional narrowing of a tenant's frame export; {@code from} is inclusive, {@code to} exclusive.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrameExportFilter {
+    private Long tenantId;
+    private Long branchId;
+    private Long cameraId;
+    private Long tableId;
+    private OffsetDateTime from;
+    private OffsetDateTime to;
+}
@@ -0,0 +1,24 @@
+package com.pluta.camera.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Columnar query result: column names once, each row as an array in column order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryResultDTO {
+    private String queryName;
+    private Long version;
+    private List<String> columns;
+    private List<Object[]> rows;
+    // True when rows were cut off at the widget's row cap
+    private Boolean truncated;
+}
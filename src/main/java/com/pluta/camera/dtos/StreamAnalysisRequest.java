@@ -0,0 +1,26 @@
+package com.pluta.camera.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Body of a call to the stream analysis API: the server grabs a frame from {@code streamUrl} itself and
+ * answers with a {@link FrameAnalysisResultDTO} tagged with the same {@code cameraId}.
+ * <p>
+ * The URL carries the camera's credentials, so this class deliberately has no {@code toString}.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamAnalysisRequest {
+
+    private String streamUrl;
+    private Long cameraId;
+    private Long streamId;
+    private Double confidenceThreshold;
+}
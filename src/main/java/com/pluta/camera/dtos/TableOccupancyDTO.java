@@ -0,0 +1,25 @@
+package com.pluta.camera.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Latest occupancy of one table, as pushed on the live occupancy feed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableOccupancyDTO {
+    private Long tableId;
+    private Long zoneId;
+    private Integer occupiedSeats;
+    private Integer totalSeats;
+    private Integer personsDetected;
+    private Double occupancyRate;
+    private OffsetDateTime observedAt;
+}
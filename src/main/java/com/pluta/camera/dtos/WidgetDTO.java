@@ -19,4 +19,12 @@ public class WidgetDTO {
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String hqlQuery;
+
+    private Integer cacheTtlSeconds;
+
+    private Integer queryTimeoutSeconds;
+
+    private Integer maxRows;
+
+    private Integer fetchSize;
 }
\ No newline at end of file
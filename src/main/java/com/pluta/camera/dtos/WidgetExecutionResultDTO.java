@@ -0,0 +1,24 @@
+package com.pluta.camera.dtos;
+
+import com.pluta.camera.enums.WidgetExecutionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One widget's outcome within a widget group execution; {@code result} is set on success, {@code error} otherwise.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WidgetExecutionResultDTO {
+    private Long widgetId;
+    private String title;
+    private String queryName;
+    private WidgetExecutionStatus status;
+    private Long elapsedMs;
+    private QueryResultDTO result;
+    private String error;
+}
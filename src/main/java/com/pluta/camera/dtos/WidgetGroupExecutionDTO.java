@@ -0,0 +1,19 @@
+package com.pluta.camera.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WidgetGroupExecutionDTO {
+    private Long widgetGroupId;
+    private Long elapsedMs;
+    private Integer failed;
+    private List<WidgetExecutionResultDTO> widgets;
+}
@@ -22,7 +22,7 @@ public class Branch extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "branch_seq")
-    @SequenceGenerator(name = "branch_seq", sequenceName = "branch_seq", allocationSize = 1)
+    @SequenceGenerator(name = "branch_seq", sequenceName = "branch_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
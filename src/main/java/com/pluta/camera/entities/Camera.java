@@ -21,7 +21,7 @@ public class Camera extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "camera_seq")
-    @SequenceGenerator(name = "camera_seq", sequenceName = "camera_seq", allocationSize = 1)
+    @SequenceGenerator(name = "camera_seq", sequenceName = "camera_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
@@ -3,7 +3,6 @@ package com.pluta.camera.entities;
 import com.pluta.camera.enums.AnalysisStatus;
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
@@ -14,12 +13,11 @@ import org.hibernate.annotations.DynamicUpdate;
 @AllArgsConstructor
 @Builder
 @DynamicUpdate
-@DynamicInsert
 public class Frame extends BaseEntity{
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "frame_seq")
-    @SequenceGenerator(name = "frame_seq", sequenceName = "frame_seq", allocationSize = 1)
+    @SequenceGenerator(name = "frame_seq", sequenceName = "frame_seq", allocationSize = 200)
     @Column(name = "id")
     private Long id;
 
@@ -0,0 +1,85 @@
+package com.pluta.camera.entities;
+
+import com.pluta.camera.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated occupancy of one table over one time bucket. Rows are only written through the
+ * additive upserts of {@link com.pluta.camera.repositories.OccupancyRollupRepository}.
+ */
+@Entity
+@Table(name = "occupancy_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OccupancyRollup extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "occupancy_rollup_seq")
+    @SequenceGenerator(name = "occupancy_rollup_seq", sequenceName = "occupancy_rollup_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "branch_id", nullable = false)
+    private Long branchId;
+
+    @Column(name = "zone_id", nullable = false)
+    private Long zoneId;
+
+    @Column(name = "table_id", nullable = false)
+    private Long tableId;
+
+    @Column(name = "frame_count", nullable = false)
+    private long frameCount;
+
+    @Column(name = "persons_detected")
+    private long personsDetected;
+
+    @Column(name = "persons_sitting")
+    private long personsSitting;
+
+    @Column(name = "occupied_seats")
+    private long occupiedSeats;
+
+    @Column(name = "total_seats")
+    private long totalSeats;
+
+    @Column(name = "occupied_chairs")
+    private long occupiedChairs;
+
+    @Column(name = "unoccupied_chairs")
+    private long unoccupiedChairs;
+
+    @Column(name = "occupied_benches")
+    private long occupiedBenches;
+
+    @Column(name = "unoccupied_benches")
+    private long unoccupiedBenches;
+
+    @Column(name = "occupied_couches")
+    private long occupiedCouches;
+
+    @Column(name = "unoccupied_couches")
+    private long unoccupiedCouches;
+
+    @Column(name = "max_persons_detected")
+    private int maxPersonsDetected;
+
+    @Column(name = "max_occupancy_rate")
+    private double maxOccupancyRate;
+}
@@ -19,7 +19,7 @@ public class StreamEntity extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stream_seq")
-    @SequenceGenerator(name = "stream_seq", sequenceName = "stream_seq", allocationSize = 1)
+    @SequenceGenerator(name = "stream_seq", sequenceName = "stream_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
@@ -0,0 +1,35 @@
+package com.pluta.camera.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ingestion lease of one stream. A node ingests the stream only while it owns an unexpired lease;
+ * expired or released leases can be claimed by whichever node the stream is assigned to.
+ */
+@Entity
+@Table(name = "stream_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@DynamicUpdate
+public class StreamLease extends BaseEntity {
+
+    @Id
+    @Column(name = "stream_id")
+    private Long streamId;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,30 @@
+package com.pluta.camera.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An application node taking part in stream ingestion. A node counts as live while its lease is valid;
+ * streams are only assigned to live nodes.
+ */
+@Entity
+@Table(name = "stream_node")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamNode extends BaseEntity {
+
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "lease_expires_at", nullable = false)
+    private LocalDateTime leaseExpiresAt;
+}
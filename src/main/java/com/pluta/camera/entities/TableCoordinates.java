@@ -19,7 +19,7 @@ public class TableCoordinates {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "table_coordinates_seq")
-    @SequenceGenerator(name = "table_coordinates_seq", sequenceName = "table_coordinates_seq", allocationSize = 1)
+    @SequenceGenerator(name = "table_coordinates_seq", sequenceName = "table_coordinates_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
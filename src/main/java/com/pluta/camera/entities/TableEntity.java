@@ -23,7 +23,7 @@ public class TableEntity extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "table_seq")
-    @SequenceGenerator(name = "table_seq", sequenceName = "table_seq", allocationSize = 1)
+    @SequenceGenerator(name = "table_seq", sequenceName = "table_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
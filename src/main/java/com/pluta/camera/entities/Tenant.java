@@ -24,7 +24,7 @@ public class Tenant extends BaseEntity {
 
     @Id
     @GeneratedValue(generator = "tenant_gen", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "tenant_gen", sequenceName = "tenant_seq", allocationSize = 1)
+    @SequenceGenerator(name = "tenant_gen", sequenceName = "tenant_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
@@ -38,7 +38,7 @@ public class Video  extends BaseEntity{
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "VIDEO_GEN")
-    @SequenceGenerator(name = "VIDEO_GEN", sequenceName = "VIDEO_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "VIDEO_GEN", sequenceName = "VIDEO_SEQ", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -82,6 +82,10 @@ public class Video  extends BaseEntity{
     @Column(name = "frames_Extracted")
     private Integer framesExtracted;
 
+    // Wall-clock start of the recording; falls back to the upload time when the file carries none
+    @Column(name = "recorded_at")
+    private LocalDateTime recordedAt;
+
     @Column(name = "processing_Started_At")
     private LocalDateTime processingStartedAt;
 
@@ -24,7 +24,7 @@ public class Video_old extends BaseEntity{
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "VIDEO_GEN")
-    @SequenceGenerator(name = "VIDEO_GEN", sequenceName = "VIDEO_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "VIDEO_GEN", sequenceName = "VIDEO_SEQ", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,7 +21,7 @@ public class Widget extends BaseEntity{
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "widget_seq")
-    @SequenceGenerator(name = "widget_seq", sequenceName = "widget_seq", allocationSize = 1)
+    @SequenceGenerator(name = "widget_seq", sequenceName = "widget_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,4 +38,22 @@ public class Widget extends BaseEntity{
     @Column(name = "hql_query",  nullable = false, columnDefinition = "TEXT")
     private String hqlQuery;
 
+    // Seconds a result stays cached; null uses widget.cache.default-ttl-seconds, 0 disables caching
+    @Column(name = "cache_ttl_seconds")
+    private Integer cacheTtlSeconds;
+
+    // Execution limits; null falls back to the widget.governance defaults
+    @Column(name = "query_timeout_seconds")
+    private Integer queryTimeoutSeconds;
+
+    @Column(name = "max_rows")
+    private Integer maxRows;
+
+    @Column(name = "fetch_size")
+    private Integer fetchSize;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
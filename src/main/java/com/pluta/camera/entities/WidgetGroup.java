@@ -24,7 +24,7 @@ public class WidgetGroup extends BaseEntity{
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "widget_group_seq")
-    @SequenceGenerator(name = "widget_group_seq", sequenceName = "widget_group_seq", allocationSize = 1)
+    @SequenceGenerator(name = "widget_group_seq", sequenceName = "widget_group_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
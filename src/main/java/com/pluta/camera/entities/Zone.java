@@ -20,7 +20,7 @@ public class Zone extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "zone_seq")
-    @SequenceGenerator(name = "zone_seq", sequenceName = "zone_seq", allocationSize = 1)
+    @SequenceGenerator(name = "zone_seq", sequenceName = "zone_seq", allocationSize = 50)
     @Column(name = "id", updatable = false, nullable = false)
     private Long id;
 
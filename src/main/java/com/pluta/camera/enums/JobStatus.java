@@ -0,0 +1,5 @@
+package com.pluta.camera.enums;
+
+public enum JobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,7 @@
+package com.pluta.camera.enums;
+
+public enum WidgetExecutionStatus {
+    SUCCEEDED,
+    FAILED,
+    TIMED_OUT
+}
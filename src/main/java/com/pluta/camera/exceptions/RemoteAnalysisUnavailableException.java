@@ -0,0 +1,18 @@
+package com.pluta.camera.exceptions;
+
+import lombok.Getter;
+
+/**
+ * A remote analysis endpoint refused the call locally: its bulkhead is full or its circuit is open.
+ * Thrown before anything is sent, so it is never retried.
+ */
+@Getter
+public class RemoteAnalysisUnavailableException extends RuntimeException {
+
+    private final String endpoint;
+
+    public RemoteAnalysisUnavailableException(String message, String endpoint) {
+        super(message);
+        this.endpoint = endpoint;
+    }
+}
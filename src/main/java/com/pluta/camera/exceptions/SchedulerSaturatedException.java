@@ -0,0 +1,14 @@
+package com.pluta.camera.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class SchedulerSaturatedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SchedulerSaturatedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pluta.camera.exceptions;
+
+public class WidgetQueryTimeoutException extends RuntimeException {
+
+    public WidgetQueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
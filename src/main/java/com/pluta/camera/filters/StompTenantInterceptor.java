@@ -0,0 +1,103 @@
+package com.pluta.camera.filters;
+
+import com.pluta.camera.context.JwtTenantClaims;
+import com.pluta.camera.services.live.OccupancyFeedService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The WebSocket counterpart of {@link TenantFilter}: the bearer token is verified on STOMP CONNECT, and a
+ * SUBSCRIBE is only accepted for the occupancy topic of the token's tenant and one of its branches. Clients
+ * cannot SEND; the feed is server-to-client only.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompTenantInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> ALLOWED_ROLES = Set.of("ROLE_ADMIN", "ROLE_MANAGER", "ROLE_USER");
+
+    private final JwtDecoder jwtDecoder;
+    private final JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT -> accessor.setUser(authenticate(accessor.getFirstNativeHeader(AUTHORIZATION_HEADER)));
+            case SUBSCRIBE -> authorizeSubscription(accessor.getUser(), accessor.getDestination());
+            case SEND -> throw new AccessDeniedException("Clients cannot publish to the occupancy feed");
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private AbstractAuthenticationToken authenticate(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            throw new AccessDeniedException("Missing bearer token on CONNECT");
+        }
+
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(authorization.substring(BEARER_PREFIX.length()));
+        } catch (JwtException e) {
+            log.warn("Rejected WebSocket CONNECT: {}", e.getMessage());
+            throw new AccessDeniedException("Invalid bearer token");
+        }
+
+        AbstractAuthenticationToken authentication = jwtAuthenticationConverter.convert(jwt);
+        boolean permitted = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(ALLOWED_ROLES::contains);
+        if (!permitted) {
+            throw new AccessDeniedException("User is not allowed to subscribe to live occupancy");
+        }
+        return authentication;
+    }
+
+    private void authorizeSubscription(Principal user, String destination) {
+        if (!(user instanceof AbstractAuthenticationToken authentication)
+                || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            throw new AccessDeniedException("Not authenticated");
+        }
+
+        OccupancyFeedService.Scope scope = OccupancyFeedService.parseDestination(destination);
+        if (scope == null) {
+            throw new AccessDeniedException("Unknown destination: " + destination);
+        }
+
+        String tenantId = JwtTenantClaims.tenantId(jwt);
+        List<String> branchIds = JwtTenantClaims.branchIds(jwt);
+        if (!String.valueOf(scope.tenantId()).equals(tenantId)
+                || branchIds == null || !branchIds.contains(String.valueOf(scope.branchId()))) {
+            log.warn("Access denied: subscription to {} outside tenant {} / branches {}", destination, tenantId,
+                    branchIds);
+            throw new AccessDeniedException("Branch not authorized for this user");
+        }
+    }
+}
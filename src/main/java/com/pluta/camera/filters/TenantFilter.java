@@ -1,5 +1,6 @@
 package com.pluta.camera.filters;
 
+import com.pluta.camera.context.JwtTenantClaims;
 import com.pluta.camera.context.TenantContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -26,7 +27,7 @@ public class TenantFilter implements HandlerInterceptor {
             "/api/v3/api-docs",
             "/api/swagger-resources",
             "/api/actuator",
-            "/api/ws/info"
+            "/api/ws/" // STOMP sessions authenticate on CONNECT, see StompTenantInterceptor
     };
 
     // Paths that skip branch validation but still validate tenant
@@ -51,8 +52,8 @@ public class TenantFilter implements HandlerInterceptor {
         // Try to get from JWT claims first
         var auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.getPrincipal() instanceof Jwt jwt) {
-            tenantId = extractTenantIdFromJwt(jwt);
-            branchIds = jwt.getClaimAsStringList(BRANCH_CODE_HEADER);
+            tenantId = JwtTenantClaims.tenantId(jwt);
+            branchIds = JwtTenantClaims.branchIds(jwt);
             log.debug("Extracted from JWT - tenantId: {}, branchId: {}", tenantId, branchIds);
         }
 
@@ -90,31 +91,6 @@ public class TenantFilter implements HandlerInterceptor {
         TenantContext.clear();
     }
 
-    private String extractTenantIdFromJwt(Jwt jwt) {
-        try {
-            var tenantClaim = jwt.getClaimAsMap("tenant");
-            if (tenantClaim != null && !tenantClaim.isEmpty()) {
-                // Get first tenant key (e.g., "tenant_a")
-                String firstKey = tenantClaim.keySet().iterator().next();
-                var tenantData = (java.util.Map<String, Object>) tenantClaim.get(firstKey);
-
-                if (tenantData != null && tenantData.containsKey("id")) {
-                    Object idValue = tenantData.get("id");
-                    if (idValue instanceof java.util.List) {
-                        java.util.List<String> idList = (java.util.List<String>) idValue;
-                        return idList.isEmpty() ? null : idList.get(0);
-                    } else if (idValue instanceof String) {
-                        return (String) idValue;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Failed to extract tenant ID from JWT: {}", e.getMessage());
-        }
-        return null;
-    }
-
-
     private boolean isExcludedPath(String requestPath) {
         for (String excludedPath : EXCLUDED_PATHS) {
             if (requestPath.startsWith(excludedPath)) {
@@ -3,6 +3,10 @@ package com.pluta.camera.repositories;
 
 import com.pluta.camera.entities.Frame;
 import com.pluta.camera.enums.AnalysisStatus;
+import com.pluta.camera.utils.KeysetPagination;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +14,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -90,6 +95,11 @@ public interface FrameRepository extends JpaRepository<Frame, Long>, JpaSpecific
 
     List<Frame> findTop10ByBranchIdOrderByCreatedAtDesc(Long branchId);
 
+    // Latest N, N taken from the page size; served by the (..., created_at, id) indexes
+    List<Frame> findByTenantIdAndBranchIdOrderByCreatedAtDescIdDesc(Long tenantId, Long branchId, Pageable pageable);
+
+    List<Frame> findByStreamIdOrderByCreatedAtDescIdDesc(Long streamId, Pageable pageable);
+
     // ========================================================================
     // Count Queries
     // ========================================================================
@@ -122,6 +132,42 @@ public interface FrameRepository extends JpaRepository<Frame, Long>, JpaSpecific
 
     boolean existsByBranchId(Long branchId);
 
+    // ========================================================================
+    // Keyset Pagination (newest first, continuation token instead of OFFSET)
+    // ========================================================================
+
+    default Window<Frame> scrollByTenantIdAndBranchId(Long tenantId, Long branchId, ScrollPosition position, int size) {
+        return KeysetPagination.CREATED_AT.scroll(this, KeysetPagination.tenantAndBranch(tenantId, branchId),
+                position, size);
+    }
+
+    default Window<Frame> scrollByVideoId(Long videoId, ScrollPosition position, int size) {
+        return KeysetPagination.CREATED_AT.scroll(this, KeysetPagination.belongsTo("video", videoId), position, size);
+    }
+
+    // ========================================================================
+    // Sampling Queries
+    // ========================================================================
+
+    /**
+     * Recent samples of a camera's tables, newest first, one row per table per sample:
+     * videoId, streamId, frameOffsetSeconds, tableId, occupiedChairs, occupiedBenches, occupiedCouches. Served by
+     * the (table_id, created_at, id) index.
+     */
+    @Query("SELECT f.video.id, f.stream.id, f.frameOffsetSeconds, f.table.id, " +
+            "f.occupiedChairs, f.occupiedBenches, f.occupiedCouches FROM Frame f " +
+            "WHERE f.table.camera.id = :cameraId AND f.createdAt >= :since " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<Object[]> findRecentOccupancyByCamera(@Param("cameraId") Long cameraId,
+                                               @Param("since") OffsetDateTime since, Pageable page);
+
+    // ========================================================================
+    // Resume Queries
+    // ========================================================================
+
+    @Query("SELECT DISTINCT f.frameOffsetSeconds FROM Frame f WHERE f.video.id = :videoId")
+    List<Double> findProcessedFrameOffsets(@Param("videoId") Long videoId);
+
     // ========================================================================
     // Delete Operations
     // ========================================================================
@@ -2,9 +2,16 @@ package com.pluta.camera.repositories;
 
 import com.pluta.camera.entities.ImageAnalysisResult;
 import com.pluta.camera.enums.AnalysisStatus;
+import com.pluta.camera.repositories.projections.AnalysisStatusCount;
+import com.pluta.camera.repositories.projections.AnalysisSummaryAggregate;
+import com.pluta.camera.utils.KeysetPagination;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,10 +21,15 @@ import java.util.List;
 import java.util.Map;
 
 @Repository
-public interface ImageAnalysisResultRepository extends JpaRepository<ImageAnalysisResult, Long> {
+public interface ImageAnalysisResultRepository extends JpaRepository<ImageAnalysisResult, Long>,
+        JpaSpecificationExecutor<ImageAnalysisResult> {
 
     Page<ImageAnalysisResult> findByVideoId(Long videoId, Pageable pageable);
 
+    default Window<ImageAnalysisResult> scrollByVideoId(Long videoId, ScrollPosition position, int size) {
+        return KeysetPagination.ANALYSIS_DATE.scroll(this, KeysetPagination.belongsTo("video", videoId), position, size);
+    }
+
     List<ImageAnalysisResult> findByStatusOrderByAnalysisDateDesc(AnalysisStatus status);
 
     // Additional methods for cleanup and analytics
@@ -30,10 +42,14 @@ public interface ImageAnalysisResultRepository extends JpaRepository<ImageAnalys
     @Query("SELECT iar FROM ImageAnalysisResult iar ORDER BY iar.analysisDate DESC")
     List<ImageAnalysisResult> findAllOrderByAnalysisDateDesc();
 
+    /**
+     * Newest results first; the page size is pushed into the SQL as a row limit.
+     */
+    @Query("SELECT iar FROM ImageAnalysisResult iar ORDER BY iar.analysisDate DESC, iar.id DESC")
+    List<ImageAnalysisResult> findLatest(Pageable pageable);
+
     default List<ImageAnalysisResult> findTopByOrderByAnalysisDateDesc(int limit) {
-        return findAllOrderByAnalysisDateDesc().stream()
-                .limit(limit)
-                .collect(java.util.stream.Collectors.toList());
+        return findLatest(PageRequest.of(0, limit));
     }
 
     Long countByStatus(AnalysisStatus status);
@@ -57,4 +73,29 @@ public interface ImageAnalysisResultRepository extends JpaRepository<ImageAnalys
     @Query("SELECT iar FROM ImageAnalysisResult iar WHERE iar.analysisDate >= :startDate ORDER BY iar.analysisDate DESC")
     List<ImageAnalysisResult> findRecentAnalyses(@Param("startDate") LocalDateTime startDate);
 
+    @Query("SELECT iar.status AS status, COUNT(iar) AS total FROM ImageAnalysisResult iar GROUP BY iar.status")
+    List<AnalysisStatusCount> countGroupedByStatus();
+
+    /**
+     * Seats follow the dashboard weighting (benches and couches count as three); results without seats
+     * contribute a zero rate to the average.
+     */
+    @Query("SELECT COUNT(iar) AS totalAnalyses, " +
+            "SUM(CASE WHEN iar.status = com.pluta.camera.enums.AnalysisStatus.COMPLETED THEN 1 ELSE 0 END) AS successfulAnalyses, " +
+            "SUM(CASE WHEN iar.status = com.pluta.camera.enums.AnalysisStatus.FAILED THEN 1 ELSE 0 END) AS failedAnalyses, " +
+            "SUM(CASE WHEN iar.status IN (com.pluta.camera.enums.AnalysisStatus.PENDING, " +
+            "com.pluta.camera.enums.AnalysisStatus.PROCESSING) THEN 1 ELSE 0 END) AS pendingAnalyses, " +
+            "AVG(iar.confidenceThreshold) AS averageConfidenceThreshold, " +
+            "SUM(iar.tablesDetected) AS totalTablesDetected, " +
+            "SUM(iar.chairsDetected) AS totalChairsDetected, " +
+            "SUM(iar.benchesDetected) AS totalBenchesDetected, " +
+            "SUM(iar.couchesDetected) AS totalCouchesDetected, " +
+            "SUM(iar.personsDetected) AS totalPersonsDetected, " +
+            "AVG(CASE WHEN iar.chairsDetected + iar.benchesDetected * 3 + iar.couchesDetected * 3 > 0 " +
+            "THEN (iar.occupiedChairs + iar.occupiedBenches * 3 + iar.occupiedCouches * 3) * 100.0 " +
+            "/ (iar.chairsDetected + iar.benchesDetected * 3 + iar.couchesDetected * 3) ELSE 0.0 END) " +
+            "AS averageOccupancyRate " +
+            "FROM ImageAnalysisResult iar WHERE iar.analysisDate BETWEEN :startDate AND :endDate")
+    AnalysisSummaryAggregate summarizeBetween(@Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
 }
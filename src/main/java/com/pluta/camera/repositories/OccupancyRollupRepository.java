@@ -0,0 +1,103 @@
+package com.pluta.camera.repositories;
+
+import com.pluta.camera.entities.OccupancyRollup;
+import com.pluta.camera.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OccupancyRollupRepository extends JpaRepository<OccupancyRollup, Long> {
+
+    // ========================================================================
+    // Incremental maintenance
+    // ========================================================================
+
+    /**
+     * Creates an empty bucket row unless it already exists. A concurrent writer inserting the same bucket
+     * makes this a no-op instead of a unique key violation, so the following {@link #addToBucket} always
+     * finds the row.
+     */
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(occupancy_rollup, uk_occupancy_rollup_bucket) */ " +
+            "INTO occupancy_rollup (id, granularity, bucket_start, tenant_id, branch_id, zone_id, table_id, " +
+            "frame_count, created_at) " +
+            "VALUES (occupancy_rollup_seq.NEXTVAL, :granularity, :bucketStart, :tenantId, :branchId, :zoneId, " +
+            ":tableId, 0, SYSTIMESTAMP)", nativeQuery = true)
+    int createBucketIfAbsent(@Param("granularity") String granularity,
+                             @Param("bucketStart") LocalDateTime bucketStart,
+                             @Param("tenantId") Long tenantId,
+                             @Param("branchId") Long branchId,
+                             @Param("zoneId") Long zoneId,
+                             @Param("tableId") Long tableId);
+
+    @Modifying
+    @Query("UPDATE OccupancyRollup r SET " +
+            "r.frameCount = r.frameCount + :frames, " +
+            "r.personsDetected = r.personsDetected + :personsDetected, " +
+            "r.personsSitting = r.personsSitting + :personsSitting, " +
+            "r.occupiedSeats = r.occupiedSeats + :occupiedSeats, " +
+            "r.totalSeats = r.totalSeats + :totalSeats, " +
+            "r.occupiedChairs = r.occupiedChairs + :occupiedChairs, " +
+            "r.unoccupiedChairs = r.unoccupiedChairs + :unoccupiedChairs, " +
+            "r.occupiedBenches = r.occupiedBenches + :occupiedBenches, " +
+            "r.unoccupiedBenches = r.unoccupiedBenches + :unoccupiedBenches, " +
+            "r.occupiedCouches = r.occupiedCouches + :occupiedCouches, " +
+            "r.unoccupiedCouches = r.unoccupiedCouches + :unoccupiedCouches, " +
+            "r.maxPersonsDetected = CASE WHEN r.maxPersonsDetected < :maxPersonsDetected " +
+            "THEN :maxPersonsDetected ELSE r.maxPersonsDetected END, " +
+            "r.maxOccupancyRate = CASE WHEN r.maxOccupancyRate < :maxOccupancyRate " +
+            "THEN :maxOccupancyRate ELSE r.maxOccupancyRate END, " +
+            "r.updatedAt = :now " +
+            "WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart AND r.tenantId = :tenantId " +
+            "AND r.branchId = :branchId AND r.zoneId = :zoneId AND r.tableId = :tableId")
+    int addToBucket(@Param("granularity") RollupGranularity granularity,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("tenantId") Long tenantId,
+                    @Param("branchId") Long branchId,
+                    @Param("zoneId") Long zoneId,
+                    @Param("tableId") Long tableId,
+                    @Param("frames") long frames,
+                    @Param("personsDetected") long personsDetected,
+                    @Param("personsSitting") long personsSitting,
+                    @Param("occupiedSeats") long occupiedSeats,
+                    @Param("totalSeats") long totalSeats,
+                    @Param("occupiedChairs") long occupiedChairs,
+                    @Param("unoccupiedChairs") long unoccupiedChairs,
+                    @Param("occupiedBenches") long occupiedBenches,
+                    @Param("unoccupiedBenches") long unoccupiedBenches,
+                    @Param("occupiedCouches") long occupiedCouches,
+                    @Param("unoccupiedCouches") long unoccupiedCouches,
+                    @Param("maxPersonsDetected") int maxPersonsDetected,
+                    @Param("maxOccupancyRate") double maxOccupancyRate,
+                    @Param("now") OffsetDateTime now);
+
+    // ========================================================================
+    // Reads
+    // ========================================================================
+
+    List<OccupancyRollup> findByTenantIdAndBranchIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+            Long tenantId, Long branchId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Buckets of the given granularity summed over all tables, one row per bucket:
+     * bucketStart, occupiedSeats, totalSeats, maxOccupancyRate, personsDetected, frameCount.
+     * Null tenant/branch means unscoped.
+     */
+    @Query("SELECT r.bucketStart, SUM(r.occupiedSeats), SUM(r.totalSeats), MAX(r.maxOccupancyRate), " +
+            "SUM(r.personsDetected), SUM(r.frameCount) FROM OccupancyRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from " +
+            "AND (:tenantId IS NULL OR r.tenantId = :tenantId) " +
+            "AND (:branchId IS NULL OR r.branchId = :branchId) " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> sumBuckets(@Param("granularity") RollupGranularity granularity,
+                              @Param("from") LocalDateTime from,
+                              @Param("tenantId") Long tenantId,
+                              @Param("branchId") Long branchId);
+}
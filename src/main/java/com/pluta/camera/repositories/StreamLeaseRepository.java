@@ -0,0 +1,59 @@
+package com.pluta.camera.repositories;
+
+import com.pluta.camera.entities.StreamLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StreamLeaseRepository extends JpaRepository<StreamLease, Long> {
+
+    /**
+     * Adds an unowned lease row for every active stream that has none. Nodes run this concurrently; the hint turns
+     * a row another node inserted first into a no-op instead of a unique constraint violation.
+     */
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(stream_lease, pk_stream_lease) */ " +
+            "INTO stream_lease (stream_id, created_at) " +
+            "SELECT s.id, SYSTIMESTAMP FROM stream s WHERE s.active = 1 " +
+            "AND NOT EXISTS (SELECT 1 FROM stream_lease l WHERE l.stream_id = s.id)", nativeQuery = true)
+    int createMissing();
+
+    /**
+     * Takes the stream if nobody holds a valid lease on it. Returns 1 when the caller owns it afterwards. Like the
+     * node leases, expiry is computed and compared on the database clock.
+     */
+    @Modifying
+    @Query(value = "UPDATE stream_lease SET owner = :owner, heartbeat_at = SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "lease_expires_at = SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), " +
+            "updated_at = SYSTIMESTAMP WHERE stream_id = :streamId " +
+            "AND (owner IS NULL OR owner = :owner OR lease_expires_at IS NULL " +
+            "OR lease_expires_at < SYS_EXTRACT_UTC(SYSTIMESTAMP))", nativeQuery = true)
+    int claim(@Param("streamId") Long streamId, @Param("owner") String owner,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query(value = "UPDATE stream_lease SET heartbeat_at = SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "lease_expires_at = SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), " +
+            "updated_at = SYSTIMESTAMP WHERE stream_id IN (:ids) AND owner = :owner", nativeQuery = true)
+    int renew(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query("UPDATE StreamLease l SET l.owner = null, l.leaseExpiresAt = null " +
+            "WHERE l.streamId IN :ids AND l.owner = :owner")
+    int release(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE StreamLease l SET l.owner = null, l.leaseExpiresAt = null WHERE l.owner = :owner")
+    int releaseAll(@Param("owner") String owner);
+
+    @Query(value = "SELECT stream_id FROM stream_lease " +
+            "WHERE owner = :owner AND lease_expires_at > SYS_EXTRACT_UTC(SYSTIMESTAMP)", nativeQuery = true)
+    List<Long> findOwnedStreamIds(@Param("owner") String owner);
+}
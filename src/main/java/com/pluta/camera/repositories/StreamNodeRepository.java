@@ -0,0 +1,49 @@
+package com.pluta.camera.repositories;
+
+import com.pluta.camera.entities.StreamNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StreamNodeRepository extends JpaRepository<StreamNode, String> {
+
+    /*
+     * Lease times are taken from the database clock, in UTC, so that nodes with skewed clocks or different time
+     * zones still agree on which leases have expired.
+     */
+
+    /**
+     * Extends the node's lease. Returns 0 when the node has no row yet and has to be registered.
+     */
+    @Modifying
+    @Query(value = "UPDATE stream_node SET heartbeat_at = SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "lease_expires_at = SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), " +
+            "updated_at = SYSTIMESTAMP WHERE node_id = :nodeId", nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Registers the node. A row another session inserted first is left alone.
+     */
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(stream_node, pk_stream_node) */ " +
+            "INTO stream_node (node_id, heartbeat_at, lease_expires_at, created_at) " +
+            "VALUES (:nodeId, SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), SYSTIMESTAMP)",
+            nativeQuery = true)
+    int register(@Param("nodeId") String nodeId, @Param("leaseSeconds") long leaseSeconds);
+
+    @Query(value = "SELECT node_id FROM stream_node WHERE lease_expires_at > SYS_EXTRACT_UTC(SYSTIMESTAMP) " +
+            "ORDER BY node_id", nativeQuery = true)
+    List<String> findLiveNodeIds();
+
+    @Modifying
+    @Query(value = "DELETE FROM stream_node " +
+            "WHERE lease_expires_at < SYS_EXTRACT_UTC(SYSTIMESTAMP) - NUMTODSINTERVAL(:seconds, 'SECOND')",
+            nativeQuery = true)
+    int deleteExpiredLongerThan(@Param("seconds") long seconds);
+}
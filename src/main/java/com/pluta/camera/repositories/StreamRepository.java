@@ -4,6 +4,7 @@ package com.pluta.camera.repositories;
 import com.pluta.camera.entities.StreamEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -29,6 +30,9 @@ public interface StreamRepository extends JpaRepository<StreamEntity, Long>, Jpa
 
     List<StreamEntity> findByTenantIdAndActive(Long tenantId, Boolean active);
 
+    @Query("SELECT s.id FROM StreamEntity s WHERE s.active = true")
+    List<Long> findActiveIds();
+
     boolean existsByCameraId(Long cameraId);
 
     long countByZoneId(Long zoneId);
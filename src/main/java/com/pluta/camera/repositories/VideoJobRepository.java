@@ -0,0 +1,75 @@
+package com.pluta.camera.repositories;
+
+import com.pluta.camera.entities.VideoJob;
+import com.pluta.camera.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VideoJobRepository extends JpaRepository<VideoJob, Long> {
+
+    long countByStatus(JobStatus status);
+
+    long countByTenantIdAndStatus(Long tenantId, JobStatus status);
+
+    /**
+     * Claim candidates: queued jobs plus running jobs whose owner stopped heart-beating.
+     * Rows are not locked here; {@link #lockIfClaimable} does that one job at a time. Lease expiry is compared on
+     * the database clock, so a node whose clock runs ahead cannot take over jobs that are still alive.
+     */
+    @Query(value = "SELECT id, tenant_id FROM video_job " +
+            "WHERE status = 'QUEUED' " +
+            "OR (status = 'RUNNING' AND lease_expires_at < SYS_EXTRACT_UTC(SYSTIMESTAMP)) " +
+            "ORDER BY id FETCH FIRST :limit ROWS ONLY", nativeQuery = true)
+    List<Object[]> findClaimCandidates(@Param("limit") int limit);
+
+    /**
+     * Locks the job if it is still claimable. SKIP LOCKED makes a row another node is claiming
+     * invisible instead of blocking on it.
+     */
+    @Query(value = "SELECT * FROM video_job WHERE id = :id " +
+            "AND (status = 'QUEUED' OR (status = 'RUNNING' AND lease_expires_at < SYS_EXTRACT_UTC(SYSTIMESTAMP))) " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<VideoJob> lockIfClaimable(@Param("id") Long id);
+
+    /**
+     * Takes a job locked by {@link #lockIfClaimable}, starting its lease on the database clock.
+     */
+    @Modifying
+    @Query(value = "UPDATE video_job SET status = 'RUNNING', owner = :owner, attempts = attempts + 1, " +
+            "heartbeat_at = SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "lease_expires_at = SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), " +
+            "updated_at = SYSTIMESTAMP WHERE id = :id", nativeQuery = true)
+    int start(@Param("id") Long id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query(value = "UPDATE video_job SET heartbeat_at = SYS_EXTRACT_UTC(SYSTIMESTAMP), " +
+            "lease_expires_at = SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(:leaseSeconds, 'SECOND'), " +
+            "updated_at = SYSTIMESTAMP WHERE id IN (:ids) AND owner = :owner AND status = 'RUNNING'",
+            nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                    @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query("UPDATE VideoJob j SET j.status = :status, j.lastError = :error, j.owner = null, j.leaseExpiresAt = null " +
+            "WHERE j.id = :id AND j.owner = :owner AND j.status = com.pluta.camera.enums.JobStatus.RUNNING")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") JobStatus status,
+               @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE VideoJob j SET j.status = com.pluta.camera.enums.JobStatus.QUEUED, j.owner = null, " +
+            "j.leaseExpiresAt = null WHERE j.id = :id AND j.owner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE VideoJob j SET j.status = com.pluta.camera.enums.JobStatus.QUEUED, j.lastError = :error, " +
+            "j.owner = null, j.leaseExpiresAt = null WHERE j.id = :id AND j.owner = :owner")
+    int requeue(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error);
+}
@@ -2,28 +2,48 @@ package com.pluta.camera.repositories;
 
 import com.pluta.camera.entities.Video;
 import com.pluta.camera.enums.ProcessingStatus;
+import com.pluta.camera.repositories.projections.VideoStatusCount;
+import com.pluta.camera.repositories.projections.VideoSummaryAggregate;
+import com.pluta.camera.utils.KeysetPagination;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface VideoRepository extends JpaRepository<Video, Long> {
+public interface VideoRepository extends JpaRepository<Video, Long>, JpaSpecificationExecutor<Video> {
     List<Video> findByUpdatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
 
     @Query("SELECT v FROM Video v ORDER BY v.updatedAt DESC")
     List<Video> findAllOrderByUpdatedAtDesc();
 
+    /**
+     * Most recently updated videos first; the page size is pushed into the SQL as a row limit.
+     */
+    @Query("SELECT v FROM Video v ORDER BY v.updatedAt DESC, v.id DESC")
+    List<Video> findLatest(Pageable pageable);
+
     default List<Video> findTopByOrderByUploadedAtDesc(int limit) {
-        return findAllOrderByUpdatedAtDesc().stream()
-                .limit(limit)
-                .collect(java.util.stream.Collectors.toList());
+        return findLatest(PageRequest.of(0, limit));
     }
 
     Long countByStatus(ProcessingStatus status);
 
+    /**
+     * Videos waiting for or in processing that have no durable job, e.g. uploaded before the job queue existed.
+     */
+    @Query("SELECT v FROM Video v WHERE v.status IN :statuses " +
+            "AND NOT EXISTS (SELECT j.id FROM VideoJob j WHERE j.video = v) ORDER BY v.id")
+    List<Video> findWithoutJob(@Param("statuses") Collection<ProcessingStatus> statuses);
+
 
     @Query("SELECT COUNT(v) FROM Video v WHERE v.processingCompletedAt BETWEEN :startDate AND :endDate")
     Long countProcessedBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -39,4 +59,25 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
 
     List<Video> findByTenantIdAndBranchId(Pageable page, Long tenantId, Long branchId);
 
+    default Window<Video> scrollByTenantIdAndBranchId(Long tenantId, Long branchId, ScrollPosition position, int size) {
+        return KeysetPagination.CREATED_AT.scroll(this, KeysetPagination.tenantAndBranch(tenantId, branchId),
+                position, size);
+    }
+
+    @Query("SELECT v.status AS status, COUNT(v) AS total FROM Video v GROUP BY v.status")
+    List<VideoStatusCount> countGroupedByStatus();
+
+    @Query("SELECT COUNT(v) AS totalVideos, " +
+            "COALESCE(SUM(v.fileSize), 0) AS totalStorageSize, " +
+            "COALESCE(SUM(v.duration), 0) AS totalDuration, " +
+            "SUM(CASE WHEN v.processingCompletedAt > :todayStart AND v.processingCompletedAt < :todayEnd " +
+            "THEN 1 ELSE 0 END) AS processedToday, " +
+            "AVG(CASE WHEN v.processingStartedAt IS NOT NULL AND v.processingCompletedAt IS NOT NULL " +
+            "THEN (v.processingCompletedAt - v.processingStartedAt) BY SECOND END) AS averageProcessingSeconds " +
+            "FROM Video v WHERE v.updatedAt BETWEEN :startDate AND :endDate")
+    VideoSummaryAggregate summarizeUpdatedBetween(@Param("startDate") OffsetDateTime startDate,
+                                                  @Param("endDate") OffsetDateTime endDate,
+                                                  @Param("todayStart") LocalDateTime todayStart,
+                                                  @Param("todayEnd") LocalDateTime todayEnd);
+
 }
@@ -1,7 +1,10 @@
 package com.pluta.camera.repositories.generics;
 
+import com.pluta.camera.utils.KeysetPagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.NoRepositoryBean;
@@ -17,4 +20,12 @@ public interface GenericRepository <E> extends JpaRepository<E, Long>, JpaSpecif
     Page<E> findByTenantIdAndBranchId(Long tenantId, Long branchId, Pageable pageable);
 
     long countByTenantIdAndBranchId(Long tenantId, Long branchId);
+
+    /**
+     * Keyset alternative to {@link #findByTenantIdAndBranchId(Long, Long, Pageable)}, newest first.
+     */
+    default Window<E> scrollByTenantIdAndBranchId(Long tenantId, Long branchId, ScrollPosition position, int size) {
+        return KeysetPagination.CREATED_AT.scroll(this, KeysetPagination.tenantAndBranch(tenantId, branchId),
+                position, size);
+    }
 }
@@ -0,0 +1,10 @@
+package com.pluta.camera.repositories.projections;
+
+import com.pluta.camera.enums.AnalysisStatus;
+
+public interface AnalysisStatusCount {
+
+    AnalysisStatus getStatus();
+
+    Long getTotal();
+}
@@ -0,0 +1,29 @@
+package com.pluta.camera.repositories.projections;
+
+/**
+ * Counts and detection sums over the analysis results of a date range, computed by the database.
+ */
+public interface AnalysisSummaryAggregate {
+
+    Long getTotalAnalyses();
+
+    Long getSuccessfulAnalyses();
+
+    Long getFailedAnalyses();
+
+    Long getPendingAnalyses();
+
+    Double getAverageConfidenceThreshold();
+
+    Long getTotalTablesDetected();
+
+    Long getTotalChairsDetected();
+
+    Long getTotalBenchesDetected();
+
+    Long getTotalCouchesDetected();
+
+    Long getTotalPersonsDetected();
+
+    Double getAverageOccupancyRate();
+}
@@ -0,0 +1,10 @@
+package com.pluta.camera.repositories.projections;
+
+import com.pluta.camera.enums.ProcessingStatus;
+
+public interface VideoStatusCount {
+
+    ProcessingStatus getStatus();
+
+    Long getTotal();
+}
@@ -0,0 +1,17 @@
+package com.pluta.camera.repositories.projections;
+
+/**
+ * Totals over the videos updated in a date range, computed by the database.
+ */
+public interface VideoSummaryAggregate {
+
+    Long getTotalVideos();
+
+    Long getTotalStorageSize();
+
+    Double getTotalDuration();
+
+    Long getProcessedToday();
+
+    Double getAverageProcessingSeconds();
+}
@@ -1,29 +1,50 @@
 package com.pluta.camera.services;
 
 
-import com.pluta.camera.entities.Frame;
 import com.pluta.camera.entities.Video;
 import com.pluta.camera.enums.ProcessingStatus;
 import com.pluta.camera.repositories.VideoRepository;
+import com.pluta.camera.services.detector.RawFrame;
+import com.pluta.camera.services.pipeline.AdaptiveSampler;
+import com.pluta.camera.services.pipeline.FrameSink;
+import com.pluta.camera.services.pipeline.MjpegFrameReader;
+import com.pluta.camera.services.pipeline.PipelineResult;
+import com.pluta.camera.services.pipeline.SampledFrame;
+import com.pluta.camera.services.pipeline.VideoFramePipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsyncVideoProcessor {
 
+    private static final int FRAME_WIDTH = 1920;
+    private static final int FRAME_HEIGHT = 1080;
+
+    // Letterbox every video to FRAME_WIDTH x FRAME_HEIGHT so raw frames have a fixed size
+    public static final String SCALE_PAD_FILTER =
+            "scale=iw*min(1920/iw\\,1080/ih):ih*min(1920/iw\\,1080/ih),pad=1920:1080:(1920-iw*min(1920/iw\\,1080/ih))/2:(1080-ih*min(1920/iw\\,1080/ih))/2";
+
     private final VideoRepository videoRepository;
 
     @Value("${video.frames.output.directory:./extracted_frames}")
@@ -34,13 +55,20 @@ public class AsyncVideoProcessor {
 
     private final ImageAnalysisService imageAnalysisService;
 
-    private final FrameService frameService;
+    private final VideoFramePipeline videoFramePipeline;
+
+    private final AdaptiveSampler adaptiveSampler;
 
-    @Async
-    public void processVideoAsync(Long videoId, String videoPath) {
+    /**
+     * Runs on a {@link com.pluta.camera.services.scheduler.VideoJobScheduler} worker thread.
+     *
+     * @param processedOffsets frame offsets already persisted by an earlier, interrupted attempt; skipped
+     * @return the final status, or PROCESSING if the thread was interrupted and the job should be resumed
+     */
+    public ProcessingStatus processVideo(Long videoId, String videoPath, Set<Double> processedOffsets) {
         Video video = videoRepository.findById(videoId).orElse(null);
         if (video == null) {
-            return;
+            return ProcessingStatus.FAILED;
         }
 
         log.info("Starting video processing");
@@ -51,32 +79,40 @@ public class AsyncVideoProcessor {
             video.setProcessingStartedAt(LocalDateTime.now());
             videoRepository.save(video);
 
-            // Extract frames and create ImageAnalysisResult entities
+            // Probe duration once; it drives both frame sampling and the video summary
+            double duration = getVideoDuration(videoPath);
+            if (video.getRecordedAt() == null) {
+                video.setRecordedAt(getRecordingStart(videoPath, video));
+                videoRepository.save(video);
+            }
 
-            List<Frame> frames = extractFrames(videoPath, video);
+            // The configured duration is the starting interval; the camera's recent activity moves it from there
+            AdaptiveSampler.Schedule schedule = adaptiveSampler.schedule(video.getCamera().getId(), frameDuration);
 
-            for(Frame f : frames){
-                frameService.frameAnalysis(new File(f.getAnnotatedImagePath()), 0.4, 0.7,
-                        video,null,f.getFrameOffsetSeconds());
-            }
+            // Extract, analyse and persist frames as a streaming pipeline so decoding and detection overlap
+            PipelineResult result = videoFramePipeline.run(video,
+                    sink -> streamFrames(videoPath, video, duration, processedOffsets, schedule, sink), 0.4, 0.7,
+                    schedule);
 
 
             //Analyze Image
            // frameService.analyze(frames,0.4,0.7,video.getCamera().getId(),video.getZone().getId(),
             //        video.getBranch().getId(),video.getTenant().getId());
 
-            // Get video duration
-            double duration = getVideoDuration(videoPath);
-
             // Update video with results
             video.setStatus(ProcessingStatus.COMPLETED);
             video.setDuration(duration);
-            video.setFramesExtracted(frames.size());
+            video.setFramesExtracted(result.framesExtracted() + processedOffsets.size());
             video.setProcessingCompletedAt(LocalDateTime.now());
             videoRepository.save(video); // This will also save the ImageAnalysisResult entities due to cascade
 
 
-        } catch (IOException | InterruptedException  e) {
+        } catch (InterruptedException e) {
+            // Shutting down: leave the video in PROCESSING so its job is resumed from the persisted frames
+            log.warn("Video {} processing interrupted", videoId);
+            Thread.currentThread().interrupt();
+            return ProcessingStatus.PROCESSING;
+        } catch (IOException | RuntimeException e) {
             log.error("Error analyzing video: {}", e.getMessage(), e);
             video.setStatus(ProcessingStatus.FAILED);
             video.setErrorMessage(e.getMessage());
@@ -84,57 +120,193 @@ public class AsyncVideoProcessor {
             videoRepository.save(video);
         }
         log.info("End video processing");
+        return video.getStatus();
     }
 
-    private List<Frame> extractFrames(String videoPath, Video video) throws IOException, InterruptedException {
-        List<Frame> extractedFrames = new ArrayList<>();
-
-        // Get video duration first
-        double duration = getVideoDuration(videoPath);
-
-        // Calculate frame extraction points (by default every 10 seconds)
-        List<Double> timePoints = new ArrayList<>();
-        for (double time = 0; time < duration; time += frameDuration) {
-            timePoints.add(time);
+    /**
+     * Decodes the video on the schedule's current interval ({@code fps=1/interval}) and hands each frame to the
+     * sink as soon as ffmpeg emits it. When the sink blocks, ffmpeg blocks on its stdout pipe, so no more than
+     * the pipeline's queue capacity is ever buffered.
+     * <p>
+     * When the adaptive schedule moves the interval, the running decoder is stopped and a new one started with
+     * {@code -ss} one new interval after the last decoded frame. Only frames the schedule can use are decoded,
+     * at the price of one seek per interval change.
+     * <p>
+     * In in-memory mode ffmpeg emits raw BGR frames ({@code -f rawvideo -pix_fmt bgr24}) that go straight
+     * to the detector; otherwise frames arrive as an MJPEG stream and are written as JPEG files first.
+     * <p>
+     * When resuming, decoding starts at the first unprocessed time point and frames that were already
+     * persisted are decoded but not analysed again. An adaptive schedule resumes one interval after the last
+     * persisted frame instead, since its earlier frames did not follow a fixed grid.
+     */
+    private void streamFrames(String videoPath, Video video, double duration, Set<Double> processedOffsets,
+                              AdaptiveSampler.Schedule schedule, FrameSink sink)
+            throws IOException, InterruptedException {
+        double start = 0;
+        if (schedule.isAdaptive() && !processedOffsets.isEmpty()) {
+            double lastProcessed = Collections.max(processedOffsets);
+            schedule.markSampled(lastProcessed);
+            start = lastProcessed + schedule.intervalSeconds();
+        } else {
+            while (start < duration && processedOffsets.contains(start)) {
+                start += schedule.intervalSeconds();
+            }
+        }
+        if (start >= duration) {
+            return;
+        }
+        if (start > 0) {
+            log.info("Resuming video {} at {}s ({} frames already processed)", video.getId(), start,
+                    processedOffsets.size());
         }
 
-        // Extract frames at each time point
         String baseFileName = video.getOriginalFileName().replaceAll("\\.[^.]+$", "");
+        boolean inMemory = videoFramePipeline.usesInMemoryFrames();
+        int frameNumber = 0;
+        while (start < duration) {
+            int step = schedule.intervalSeconds();
+            int frames = (int) Math.ceil((duration - start) / step);
+
+            Process process = new ProcessBuilder(extractionCommand(videoPath, start, step, frames, inMemory)).start();
+            drainErrors(process);
+
+            double next = duration;
+            boolean completed = false;
+            try (InputStream output = process.getInputStream()) {
+                MjpegFrameReader jpegReader = inMemory ? null : new MjpegFrameReader(output);
+                int frameSize = RawFrame.frameSize(FRAME_WIDTH, FRAME_HEIGHT);
+
+                for (int k = 0; k < frames; k++) {
+                    double timePoint = start + (double) k * step;
+                    if (k > 0 && schedule.intervalSeconds() != step) {
+                        // Restart on the new interval rather than decode frames it would skip
+                        next = timePoint - step + schedule.intervalSeconds();
+                        break;
+                    }
+                    boolean alreadyProcessed = processedOffsets.contains(timePoint);
+                    String outputFileName = String.format("%s_frame_%03d_%.0fs.jpg",
+                            baseFileName, ++frameNumber, timePoint);
+                    String outputPath = outputDirectory + File.separator + outputFileName;
+
+                    if (inMemory) {
+                        byte[] bgr = output.readNBytes(frameSize);
+                        if (bgr.length == 0) {
+                            break;
+                        }
+                        if (bgr.length < frameSize) {
+                            throw new IOException("Truncated frame at " + timePoint + "s: " + bgr.length + " of "
+                                    + frameSize + " bytes");
+                        }
+                        if (alreadyProcessed || !schedule.shouldSample(timePoint)) {
+                            continue;
+                        }
+                        sink.accept(SampledFrame.inMemory(timePoint, outputPath,
+                                new RawFrame(FRAME_WIDTH, FRAME_HEIGHT, bgr)));
+                    } else {
+                        byte[] jpeg = jpegReader.next();
+                        if (jpeg == null) {
+                            break;
+                        }
+                        if (alreadyProcessed || !schedule.shouldSample(timePoint)) {
+                            continue;
+                        }
+                        Files.write(Paths.get(outputPath), jpeg);
+                        sink.accept(SampledFrame.onDisk(timePoint, outputPath));
+                    }
+                }
+                completed = next >= duration;
+            } finally {
+                if (!completed) {
+                    process.destroyForcibly();
+                }
+            }
+
+            if (completed) {
+                // Also catches the end of output above: a decoder that died early must fail the video
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    throw new IOException("FFmpeg exited with code " + exitCode);
+                }
+            } else {
+                process.waitFor();
+                log.debug("Video {} sampling moved to every {}s at {}s", video.getId(), schedule.intervalSeconds(),
+                        next);
+            }
+            start = next;
+        }
+    }
 
-        for (int i = 0; i < timePoints.size(); i++) {
-            double timePoint = timePoints.get(i);
-            String outputFileName = String.format("%s_frame_%03d_%.0fs.jpg",
-                    baseFileName, i + 1, timePoint);
-            String outputPath = outputDirectory + File.separator + outputFileName;
-
-            // FFmpeg command to extract best quality frame
-            List<String> command = new ArrayList<>();
-            command.add("ffmpeg");
-            command.add("-i");
-            command.add(videoPath);
+    /**
+     * ffmpeg arguments that decode one frame every {@code step} seconds from {@code seekSeconds} on.
+     * {@code round=up} makes output frame k the one shown at exactly {@code seekSeconds + k * step}; the default
+     * rounding would take it from half a step later.
+     */
+    static List<String> extractionCommand(String videoPath, double seekSeconds, int step, int frames,
+                                          boolean inMemory) {
+        List<String> command = new ArrayList<>();
+        command.add("ffmpeg");
+        command.add("-loglevel");
+        command.add("error");
+        if (seekSeconds > 0) {
+            // Input seek; output timestamps restart at zero, so the fps grid restarts at the seek point
             command.add("-ss");
-            command.add(String.valueOf(timePoint));
-            command.add("-vframes");
-            command.add("1");
-            command.add("-vf");
-            command.add("scale=iw*min(1920/iw\\,1080/ih):ih*min(1920/iw\\,1080/ih),pad=1920:1080:(1920-iw*min(1920/iw\\,1080/ih))/2:(1080-ih*min(1920/iw\\,1080/ih))/2");
+            command.add(String.valueOf(seekSeconds));
+        }
+        command.add("-i");
+        command.add(videoPath);
+        command.add("-vf");
+        command.add("fps=1/" + step + ":round=up," + SCALE_PAD_FILTER);
+        command.add("-frames:v");
+        command.add(String.valueOf(frames));
+        if (inMemory) {
+            command.add("-f");
+            command.add("rawvideo");
+            command.add("-pix_fmt");
+            command.add("bgr24");
+        } else {
+            command.add("-f");
+            command.add("image2pipe");
+            command.add("-c:v");
+            command.add("mjpeg");
             command.add("-q:v");
             command.add("2"); // High quality
-            command.add("-y"); // Overwrite output file
-            command.add(outputPath);
-
-            if (executeFFmpegCommand(command)) {
-                // Create ImageAnalysisResult entity for each extracted frame
-                Frame frame = new Frame();
-                frame.setAnnotatedImagePath(outputPath);
-                frame.setResolution("1920x1080"); // Set based on your scaling
-                frame.setVideo(video);
-                frame.setFrameOffsetSeconds(timePoint);
-                extractedFrames.add(frame);
-            }
         }
+        command.add("-");
+        return command;
+    }
+
+    /**
+     * The container's {@code creation_time} tag, which cameras set to the start of the recording, in the server's
+     * time zone like the rest of the timestamps. Files without one are taken to start when they were uploaded.
+     */
+    private LocalDateTime getRecordingStart(String videoPath, Video video) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("ffprobe");
+        command.add("-v");
+        command.add("quiet");
+        command.add("-show_entries");
+        command.add("format_tags=creation_time");
+        command.add("-of");
+        command.add("default=noprint_wrappers=1:nokey=1");
+        command.add(videoPath);
+
+        Process process = new ProcessBuilder(command).start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+        process.waitFor();
 
-        return extractedFrames;
+        if (process.exitValue() == 0 && !output.isEmpty()) {
+            try {
+                return LocalDateTime.ofInstant(Instant.parse(output), ZoneId.systemDefault());
+            } catch (DateTimeParseException e) {
+                log.debug("Ignoring unparseable creation_time '{}' of video {}", output, video.getId());
+            }
+        }
+        return video.getCreatedAt() != null
+                ? video.getCreatedAt().atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                : LocalDateTime.now();
     }
 
     private double getVideoDuration(String videoPath) throws IOException, InterruptedException {
@@ -168,22 +340,18 @@ public class AsyncVideoProcessor {
         return Double.parseDouble(output.toString().trim());
     }
 
-    private boolean executeFFmpegCommand(List<String> command) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-
-        Process process = pb.start();
-
-        // Read output to prevent process from hanging
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Log or process FFmpeg output if needed
-                System.out.println("FFmpeg: " + line);
+    private void drainErrors(Process process) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.warn("FFmpeg: {}", line);
+                }
+            } catch (IOException e) {
+                log.debug("FFmpeg stderr closed: {}", e.getMessage());
             }
-        }
-
-        int exitCode = process.waitFor();
-        return exitCode == 0;
+        }, "ffmpeg-stderr");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
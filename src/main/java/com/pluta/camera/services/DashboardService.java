@@ -1,13 +1,18 @@
 package com.pluta.camera.services;
 
 
+import com.pluta.camera.context.TenantContext;
 import com.pluta.camera.dtos.dashboard.*;
 import com.pluta.camera.entities.ImageAnalysisResult;
 import com.pluta.camera.entities.Video;
-import com.pluta.camera.enums.AnalysisStatus;
 import com.pluta.camera.enums.ProcessingStatus;
+import com.pluta.camera.enums.RollupGranularity;
 import com.pluta.camera.repositories.ImageAnalysisResultRepository;
+import com.pluta.camera.repositories.OccupancyRollupRepository;
 import com.pluta.camera.repositories.VideoRepository;
+import com.pluta.camera.repositories.projections.AnalysisStatusCount;
+import com.pluta.camera.repositories.projections.AnalysisSummaryAggregate;
+import com.pluta.camera.repositories.projections.VideoSummaryAggregate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,18 +20,20 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
-//@Service
+@Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class DashboardService {
 
     private final VideoRepository videoRepository;
     private final ImageAnalysisResultRepository imageAnalysisResultRepository;
+    private final OccupancyRollupRepository occupancyRollupRepository;
 
     public DashboardDTO getDashboardData(LocalDateTime startDate, LocalDateTime endDate) {
         if (startDate == null) {
@@ -46,95 +53,66 @@ public class DashboardService {
     }
 
     public VideoSummaryDTO getVideosSummary(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Video> videos = videoRepository.findByUpdatedAtBetween(
-                startDate != null ? startDate : LocalDateTime.now().minusDays(30),
-                endDate != null ? endDate : LocalDateTime.now()
-        );
+        LocalDateTime from = startDate != null ? startDate : LocalDateTime.now().minusDays(30);
+        LocalDateTime to = endDate != null ? endDate : LocalDateTime.now();
 
-        LocalDateTime todayStart = LocalDateTime.now().with(LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.now().with(LocalTime.MAX);
-
-        long videosProcessedToday = videos.stream()
-                .filter(v -> v.getProcessingCompletedAt() != null)
-                .filter(v -> v.getProcessingCompletedAt().isAfter(todayStart) &&
-                        v.getProcessingCompletedAt().isBefore(todayEnd))
-                .count();
-
-        double avgProcessingTime = videos.stream()
-                .filter(v -> v.getProcessingStartedAt() != null && v.getProcessingCompletedAt() != null)
-                .mapToDouble(v -> ChronoUnit.SECONDS.between(v.getProcessingStartedAt(), v.getProcessingCompletedAt()))
-                .average()
-                .orElse(0);
+        VideoSummaryAggregate summary = videoRepository.summarizeUpdatedBetween(
+                toOffset(from), toOffset(to),
+                LocalDateTime.now().with(LocalTime.MIN), LocalDateTime.now().with(LocalTime.MAX));
 
        // List<VideoSummaryDTO.RecentVideoDTO> recentVideos = getRecentVideos(10);
 
         return VideoSummaryDTO.builder()
-                .totalVideos((long) videos.size())
-                .totalStorageSize(videos.stream().mapToLong(Video::getFileSize).sum())
-                .totalDuration(videos.stream()
-                        .filter(v -> v.getDuration() != null)
-                        .mapToDouble(Video::getDuration)
-                        .sum())
-                .videosProcessedToday(videosProcessedToday)
-                .averageProcessingTime(avgProcessingTime)
+                .totalVideos(zeroIfNull(summary.getTotalVideos()))
+                .totalStorageSize(zeroIfNull(summary.getTotalStorageSize()))
+                .totalDuration(zeroIfNull(summary.getTotalDuration()))
+                .videosProcessedToday(zeroIfNull(summary.getProcessedToday()))
+                .averageProcessingTime(zeroIfNull(summary.getAverageProcessingSeconds()))
               //  .recentVideos(recentVideos)
                 .build();
     }
 
     public AnalysisSummaryDTO getAnalysisSummary(LocalDateTime startDate, LocalDateTime endDate) {
-        List<ImageAnalysisResult> results = imageAnalysisResultRepository.findByAnalysisDateBetween(
+        AnalysisSummaryAggregate summary = imageAnalysisResultRepository.summarizeBetween(
                 startDate != null ? startDate : LocalDateTime.now().minusDays(30),
                 endDate != null ? endDate : LocalDateTime.now()
         );
 
-        long successfulAnalyses = results.stream()
-                .filter(r -> r.getStatus() == AnalysisStatus.COMPLETED)
-                .count();
-
-        long failedAnalyses = results.stream()
-                .filter(r -> r.getStatus() == AnalysisStatus.FAILED)
-                .count();
-
-        long pendingAnalyses = results.stream()
-                .filter(r -> r.getStatus() == AnalysisStatus.PENDING || r.getStatus() == AnalysisStatus.PROCESSING)
-                .count();
-
-        double avgConfidence = results.stream()
-                .filter(r -> r.getConfidenceThreshold() != null)
-                .mapToDouble(ImageAnalysisResult::getConfidenceThreshold)
-                .average()
-                .orElse(0.0);
-
-        AnalysisSummaryDTO.ObjectDetectionSummaryDTO objectSummary = calculateObjectDetectionSummary(results);
+        AnalysisSummaryDTO.ObjectDetectionSummaryDTO objectSummary = AnalysisSummaryDTO.ObjectDetectionSummaryDTO.builder()
+                .totalTablesDetected(zeroIfNull(summary.getTotalTablesDetected()))
+                .totalChairsDetected(zeroIfNull(summary.getTotalChairsDetected()))
+                .totalBenchesDetected(zeroIfNull(summary.getTotalBenchesDetected()))
+                .totalCouchesDetected(zeroIfNull(summary.getTotalCouchesDetected()))
+                .totalPersonsDetected(zeroIfNull(summary.getTotalPersonsDetected()))
+                .averageOccupancyRate(zeroIfNull(summary.getAverageOccupancyRate()))
+                .build();
 
         return AnalysisSummaryDTO.builder()
-                .totalAnalyses((long) results.size())
-                .successfulAnalyses(successfulAnalyses)
-                .failedAnalyses(failedAnalyses)
-                .pendingAnalyses(pendingAnalyses)
-                .averageConfidenceThreshold(avgConfidence)
+                .totalAnalyses(zeroIfNull(summary.getTotalAnalyses()))
+                .successfulAnalyses(zeroIfNull(summary.getSuccessfulAnalyses()))
+                .failedAnalyses(zeroIfNull(summary.getFailedAnalyses()))
+                .pendingAnalyses(zeroIfNull(summary.getPendingAnalyses()))
+                .averageConfidenceThreshold(zeroIfNull(summary.getAverageConfidenceThreshold()))
                 .objectDetectionSummary(objectSummary)
                 .build();
     }
 
     public ProcessingStatusSummaryDTO getProcessingStatus() {
-        Map<String, Long> videoStatusCounts = videoRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        v -> v.getStatus().toString(),
-                        Collectors.counting()
-                ));
-
-        Map<String, Long> analysisStatusCounts = imageAnalysisResultRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        r -> r.getStatus().toString(),
-                        Collectors.counting()
-                ));
-
-        long activeProcessing = videoRepository.countByStatus(ProcessingStatus.PROCESSING);
-        long queuedForProcessing = videoRepository.countByStatus(ProcessingStatus.UPLOADED);
-
-        long totalProcessed = videoRepository.countByStatus(ProcessingStatus.COMPLETED);
-        long totalFailed = videoRepository.countByStatus(ProcessingStatus.FAILED);
+        Map<ProcessingStatus, Long> videoCounts = new EnumMap<>(ProcessingStatus.class);
+        videoRepository.countGroupedByStatus()
+                .forEach(c -> videoCounts.put(c.getStatus(), c.getTotal()));
+
+        Map<String, Long> videoStatusCounts = videoCounts.entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey().toString(), Map.Entry::getValue));
+
+        Map<String, Long> analysisStatusCounts = imageAnalysisResultRepository.countGroupedByStatus().stream()
+                .collect(Collectors.toMap(c -> c.getStatus().toString(), AnalysisStatusCount::getTotal));
+
+        long activeProcessing = videoCounts.getOrDefault(ProcessingStatus.PROCESSING, 0L);
+        long queuedForProcessing = videoCounts.getOrDefault(ProcessingStatus.UPLOADED, 0L);
+
+        long totalProcessed = videoCounts.getOrDefault(ProcessingStatus.COMPLETED, 0L);
+        long totalFailed = videoCounts.getOrDefault(ProcessingStatus.FAILED, 0L);
         double successRate = totalProcessed + totalFailed > 0
                 ? (double) totalProcessed / (totalProcessed + totalFailed) * 100
                 : 0;
@@ -148,37 +126,60 @@ public class DashboardService {
                 .build();
     }
 
+    /**
+     * Daily trends read from the pre-aggregated rollups: one row per day bucket plus the hour buckets of
+     * the same range for the busiest hour, independent of the number of frames analysed.
+     */
     public List<OccupancyTrendsDTO> getOccupancyTrends(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        List<ImageAnalysisResult> results = imageAnalysisResultRepository.findByAnalysisDateAfter(startDate);
-
-        Map<LocalDate, List<ImageAnalysisResult>> resultsByDate = results.stream()
-                .collect(Collectors.groupingBy(r -> r.getAnalysisDate().toLocalDate()));
-
-        return resultsByDate.entrySet().stream()
-                .map(entry -> {
-                    LocalDate date = entry.getKey();
-                    List<ImageAnalysisResult> dayResults = entry.getValue();
+        LocalDateTime startDate = LocalDate.now().minusDays(days).atStartOfDay();
+        Long tenantId = TenantContext.getTenantId();
+        Long branchId = TenantContext.getBranchId();
+
+        Map<LocalDate, String> busiestHours = new HashMap<>();
+        Map<LocalDate, Long> busiestHourVisitors = new HashMap<>();
+        for (Object[] hour : occupancyRollupRepository.sumBuckets(RollupGranularity.HOUR, startDate, tenantId, branchId)) {
+            LocalDateTime bucketStart = (LocalDateTime) hour[0];
+            long visitors = toLong(hour[4]);
+            LocalDate date = bucketStart.toLocalDate();
+            if (visitors > busiestHourVisitors.getOrDefault(date, -1L)) {
+                busiestHourVisitors.put(date, visitors);
+                busiestHours.put(date, String.format("%02d:00", bucketStart.getHour()));
+            }
+        }
 
-                    double avgOccupancy = calculateAverageOccupancy(dayResults);
-                    double peakOccupancy = calculatePeakOccupancy(dayResults);
-                    int totalVisitors = dayResults.stream()
-                            .mapToInt(ImageAnalysisResult::getPersonsDetected)
-                            .sum();
-                    String busiestHour = findBusiestHour(dayResults);
+        return occupancyRollupRepository.sumBuckets(RollupGranularity.DAY, startDate, tenantId, branchId).stream()
+                .map(day -> {
+                    LocalDate date = ((LocalDateTime) day[0]).toLocalDate();
+                    long occupiedSeats = toLong(day[1]);
+                    long totalSeats = toLong(day[2]);
 
                     return OccupancyTrendsDTO.builder()
                             .date(date)
-                            .averageOccupancy(avgOccupancy)
-                            .peakOccupancy(peakOccupancy)
-                            .totalVisitors(totalVisitors)
-                            .busiestHour(busiestHour)
+                            .averageOccupancy(totalSeats > 0 ? (double) occupiedSeats / totalSeats * 100 : 0.0)
+                            .peakOccupancy(day[3] != null ? ((Number) day[3]).doubleValue() : 0.0)
+                            .totalVisitors((int) toLong(day[4]))
+                            .busiestHour(busiestHours.getOrDefault(date, "N/A"))
                             .build();
                 })
-                .sorted(Comparator.comparing(OccupancyTrendsDTO::getDate))
                 .collect(Collectors.toList());
     }
 
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static long zeroIfNull(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static double zeroIfNull(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static OffsetDateTime toOffset(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
  /*   public List<VideoSummaryDTO.RecentVideoDTO> getRecentVideos(int limit) {
         return videoRepository.findTopByOrderByUploadedAtDesc(limit).stream()
                 .map(this::mapToRecentVideoDTO)
@@ -214,24 +215,6 @@ public class DashboardService {
                 .build();
     }
 
-    private AnalysisSummaryDTO.ObjectDetectionSummaryDTO calculateObjectDetectionSummary(List<ImageAnalysisResult> results) {
-        long totalTables = results.stream().mapToLong(ImageAnalysisResult::getTablesDetected).sum();
-        long totalChairs = results.stream().mapToLong(ImageAnalysisResult::getChairsDetected).sum();
-        long totalBenches = results.stream().mapToLong(ImageAnalysisResult::getBenchesDetected).sum();
-        long totalCouches = results.stream().mapToLong(ImageAnalysisResult::getCouchesDetected).sum();
-        long totalPersons = results.stream().mapToLong(ImageAnalysisResult::getPersonsDetected).sum();
-        double avgOccupancy = calculateAverageOccupancy(results);
-
-        return AnalysisSummaryDTO.ObjectDetectionSummaryDTO.builder()
-                .totalTablesDetected(totalTables)
-                .totalChairsDetected(totalChairs)
-                .totalBenchesDetected(totalBenches)
-                .totalCouchesDetected(totalCouches)
-                .totalPersonsDetected(totalPersons)
-                .averageOccupancyRate(avgOccupancy)
-                .build();
-    }
-
     private double calculateOccupancyRate(ImageAnalysisResult result) {
         int totalSeats = result.getChairsDetected() + result.getBenchesDetected() * 3 + result.getCouchesDetected() * 3;
         int occupiedSeats = result.getOccupiedChairs() + result.getOccupiedBenches() * 3 + result.getOccupiedCouches() * 3;
@@ -246,13 +229,6 @@ public class DashboardService {
                 .orElse(0.0);
     }
 
-    private double calculatePeakOccupancy(List<ImageAnalysisResult> results) {
-        return results.stream()
-                .mapToDouble(this::calculateOccupancyRate)
-                .max()
-                .orElse(0.0);
-    }
-
     private Map.Entry<LocalDateTime, Double> findPeakOccupancyWithTime(List<ImageAnalysisResult> results) {
         return results.stream()
                 .collect(Collectors.toMap(
@@ -264,19 +240,6 @@ public class DashboardService {
                 .orElse(new AbstractMap.SimpleEntry<>(LocalDateTime.now(), 0.0));
     }
 
-    private String findBusiestHour(List<ImageAnalysisResult> dayResults) {
-        Map<Integer, Long> hourCounts = dayResults.stream()
-                .collect(Collectors.groupingBy(
-                        r -> r.getAnalysisDate().getHour(),
-                        Collectors.counting()
-                ));
-
-        return hourCounts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(entry -> String.format("%02d:00", entry.getKey()))
-                .orElse("N/A");
-    }
-
     private OccupancyStatisticsDTO.OccupancyDetailsDTO buildOccupancyDetails(ImageAnalysisResult result) {
         int totalSeats = result.getChairsDetected() +
                 result.getBenchesDetected() * 3 +
@@ -6,6 +6,7 @@ import com.pluta.camera.enums.AnalysisStatus;
 import com.pluta.camera.repositories.ImageAnalysisResultRepository;
 import com.pluta.camera.services.mappers.ImageAnalysisPythonMapper;
 import com.pluta.camera.services.mappers.ImageAnalysisResultMapper;
+import com.pluta.camera.utils.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,6 +78,12 @@ public class ImageAnalysisService {
         return imageAnalysisResultMapper.toDTOList(analysisRepository.findByVideoId(videoId,pageable).getContent());
     }
 
+    public CursorPageDTO<AnalysisResultDTO> scrollAnalysisResults(Long videoId, String cursor, int size) {
+        return KeysetPagination.ANALYSIS_DATE.toPage(
+                analysisRepository.scrollByVideoId(videoId, KeysetPagination.ANALYSIS_DATE.position(cursor), size),
+                imageAnalysisResultMapper::toDTO);
+    }
+
     public Optional<ImageAnalysisResult> getAnalysisResult(Long id) {
         return analysisRepository.findById(id);
     }
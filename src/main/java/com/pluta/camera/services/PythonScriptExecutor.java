@@ -1,14 +1,20 @@
 package com.pluta.camera.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.pluta.camera.dtos.FrameAnalysisResultDTO;
 import com.pluta.camera.dtos.PythonAnalysisResult;
+import com.pluta.camera.services.detector.DetectorRequest;
+import com.pluta.camera.services.detector.DetectorWorkerPool;
+import com.pluta.camera.services.detector.DetectorZone;
+import com.pluta.camera.services.detector.RawFrame;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +22,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +34,8 @@ public class PythonScriptExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(PythonScriptExecutor.class);
 
+    private static final String LABELED_OUTPUT_DIR = "/Users/abdulrahman/Desktop/POC/CameraAi/video-procesing/labeled";
+
     @Value("${analysis.python.script-path}")
     private String scriptPath;
 
@@ -34,16 +43,26 @@ public class PythonScriptExecutor {
     @Value("${analysis.python.python-executable}")
     private String pythonExecutable;
 
+    @Autowired
+    private DetectorWorkerPool detectorWorkerPool;
+
     public FrameAnalysisResultDTO executeAnalysis(String imagePath, Double confidenceThreshold,
                                                   Double zoneConfidenceThreshold,Long cameraId ,
                                                   Long tableId,List<String> coordinates) throws IOException,
             InterruptedException {
+        if (detectorWorkerPool.isEnabled()) {
+            DetectorRequest request = DetectorRequest.forTable(imagePath, cameraId.toString(), tableId,
+                    coordinates.stream().map(Integer::valueOf).collect(Collectors.toList()),
+                    confidenceThreshold, zoneConfidenceThreshold, LABELED_OUTPUT_DIR);
+            return parseAnalysisResult(detectorWorkerPool.analyze(request));
+        }
+
         // CHANGE THIS - Use pythonExecutable instead of hardcoded "python3"
         List<String> command = Arrays.asList(
                 pythonExecutable,  // ✅ Use configured path instead of "python3"
                 scriptPath,
                 imagePath,
-                "-o","/Users/abdulrahman/Desktop/POC/CameraAi/video-procesing/labeled",
+                "-o",LABELED_OUTPUT_DIR,
                 "--confidence", confidenceThreshold.toString(),
                 "--zone-threshold",zoneConfidenceThreshold.toString(),
                 "--camera-id",cameraId.toString(),
@@ -55,6 +74,77 @@ public class PythonScriptExecutor {
                 .collect(Collectors.toList());
 
 
+        // Parse JSON output
+        return parseAnalysisResult(runScript(finalCommand));
+    }
+
+    /**
+     * Evaluates all table polygons of one camera frame with a single detector pass.
+     *
+     * @param coordinatesByTable flat x/y coordinate list of each table polygon, keyed by table id
+     * @return one result per table that was analysed successfully
+     */
+    public List<FrameAnalysisResultDTO> executeBatchAnalysis(String imagePath, Double confidenceThreshold,
+                                                             Double zoneConfidenceThreshold, Long cameraId,
+                                                             Map<Long, List<String>> coordinatesByTable)
+            throws IOException, InterruptedException {
+        List<DetectorZone> zones = toZones(coordinatesByTable);
+
+        String output;
+        if (detectorWorkerPool.isEnabled()) {
+            output = detectorWorkerPool.analyze(DetectorRequest.forZones(imagePath, cameraId.toString(), zones,
+                    confidenceThreshold, zoneConfidenceThreshold, LABELED_OUTPUT_DIR));
+        } else {
+            List<String> command = Arrays.asList(
+                    pythonExecutable,
+                    scriptPath,
+                    imagePath,
+                    "-o", LABELED_OUTPUT_DIR,
+                    "--confidence", confidenceThreshold.toString(),
+                    "--zone-threshold", zoneConfidenceThreshold.toString(),
+                    "--camera-id", cameraId.toString(),
+                    "--zones-json", objectMapper().writeValueAsString(zones)
+            );
+            output = runScript(command);
+        }
+
+        return parseBatchAnalysisResult(output);
+    }
+
+    /**
+     * Same as {@link #executeBatchAnalysis(String, Double, Double, Long, Map)} for a frame that is already
+     * decoded in memory. The pixels are piped straight to a warm worker, so this needs the worker pool.
+     *
+     * @param frameName name used for the annotated image; nothing is written unless {@code annotate} is set
+     */
+    public List<FrameAnalysisResultDTO> executeBatchAnalysis(RawFrame frame, String frameName,
+                                                             Double confidenceThreshold,
+                                                             Double zoneConfidenceThreshold, Long cameraId,
+                                                             Map<Long, List<String>> coordinatesByTable,
+                                                             boolean annotate)
+            throws IOException, InterruptedException {
+        if (!detectorWorkerPool.isEnabled()) {
+            throw new IllegalStateException("In-memory frame analysis requires the detector worker pool");
+        }
+
+        DetectorRequest request = DetectorRequest.forRawZones(frameName, frame, cameraId.toString(),
+                toZones(coordinatesByTable), confidenceThreshold, zoneConfidenceThreshold, LABELED_OUTPUT_DIR,
+                annotate);
+        return parseBatchAnalysisResult(detectorWorkerPool.analyze(request, frame));
+    }
+
+    public boolean supportsInMemoryFrames() {
+        return detectorWorkerPool.isEnabled();
+    }
+
+    private List<DetectorZone> toZones(Map<Long, List<String>> coordinatesByTable) {
+        return coordinatesByTable.entrySet().stream()
+                .map(entry -> new DetectorZone(entry.getKey(),
+                        entry.getValue().stream().map(Integer::valueOf).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
+
+    private String runScript(List<String> finalCommand) throws IOException, InterruptedException {
         logger.info("Executing command: {}", String.join(" ", finalCommand));
 
         ProcessBuilder pb = new ProcessBuilder(finalCommand);
@@ -96,8 +186,7 @@ public class PythonScriptExecutor {
                     "\nError: " + errorOutput.toString());
         }
 
-        // Parse JSON output
-        return parseAnalysisResult(output.toString());
+        return output.toString();
     }
 
     // ADD THIS - Method to test Python setup
@@ -163,11 +252,37 @@ public class PythonScriptExecutor {
         // Try to extract JSON from the output
         String jsonString = extractJsonFromOutput(output);
 
+        return objectMapper().readValue(jsonString, FrameAnalysisResultDTO.class);
+    }
+
+    /**
+     * Any table the detector could not evaluate fails the whole frame: a missing result would otherwise read as
+     * an empty table and drive occupancy to zero.
+     */
+    private List<FrameAnalysisResultDTO> parseBatchAnalysisResult(String output) throws IOException {
+        logger.debug("Raw Python output: {}", output);
+
+        ObjectMapper mapper = objectMapper();
+        List<FrameAnalysisResultDTO> results = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        for (JsonNode node : mapper.readTree(extractJsonFromOutput(output)).path("results")) {
+            if (!"COMPLETED".equals(node.path("status").asText())) {
+                failures.add("table " + node.path("tableId").asText() + ": " + node.path("error_message").asText());
+                continue;
+            }
+            results.add(mapper.treeToValue(node, FrameAnalysisResultDTO.class));
+        }
+        if (!failures.isEmpty()) {
+            throw new IOException("Zone analysis failed for " + String.join("; ", failures));
+        }
+        return results;
+    }
+
+    private ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-
-        return mapper.readValue(jsonString, FrameAnalysisResultDTO.class);
+        return mapper;
     }
 
 
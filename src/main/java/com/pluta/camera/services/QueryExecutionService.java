@@ -1,70 +1,200 @@
 package com.pluta.camera.services;
 
 import com.pluta.camera.context.TenantContext;
+import com.pluta.camera.dtos.QueryResultDTO;
+import com.pluta.camera.dtos.WidgetExecutionResultDTO;
+import com.pluta.camera.dtos.WidgetGroupExecutionDTO;
 import com.pluta.camera.entities.Widget;
+import com.pluta.camera.enums.WidgetExecutionStatus;
+import com.pluta.camera.exceptions.ResourceNotFoundException;
+import com.pluta.camera.exceptions.WidgetQueryTimeoutException;
+import com.pluta.camera.repositories.WidgetGroupRepository;
 import com.pluta.camera.repositories.WidgetRepository;
-import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
+import com.pluta.camera.services.query.WidgetQueryExecutor;
+import com.pluta.camera.services.query.WidgetQueryPlan;
+import com.pluta.camera.services.query.WidgetQueryRegistry;
+import com.pluta.camera.services.query.WidgetResultCache;
+import com.pluta.camera.services.query.WidgetResultKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
-@Transactional(readOnly = true)
 @RequiredArgsConstructor
 @Slf4j
 public class QueryExecutionService {
 
+    private final WidgetQueryRegistry widgetQueryRegistry;
+    private final WidgetQueryExecutor widgetQueryExecutor;
+    private final WidgetResultCache widgetResultCache;
+    private final WidgetGroupRepository widgetGroupRepository;
     private final WidgetRepository widgetRepository;
+    private final Executor widgetBatchTaskExecutor;
 
-    @PersistenceContext
-    private final EntityManager entityManager;
+    @Value("${widget.batch.timeout-seconds:30}")
+    private long batchTimeoutSeconds;
 
 
-    @Transactional(readOnly = true)
-    public List<Map<String, Object>> executeQuery(String queryName, Map<String, Object> parameters) {
-        Widget dynamicQuery = widgetRepository.findByQueryName(queryName)
-                .orElseThrow(() -> new IllegalArgumentException("Query not found with queryName: " + queryName));
+    // Not transactional: waiting on a shared cache load must not hold a connection
+    public QueryResultDTO executeQuery(String queryName, Map<String, Object> parameters) {
+        WidgetQueryPlan plan = widgetQueryRegistry.plan(queryName);
 
+        // Validate parameters before they become part of a cache key
+        rejectContextParameters(parameters);
+        if (parameters != null) {
+            parameters.keySet().forEach(name -> {
+                if (!plan.parameterNames().contains(name)) {
+                    throw new IllegalArgumentException("Unknown parameter '" + name + "' for queryName: " + queryName);
+                }
+            });
+        }
+
+        return execute(plan, parameters);
+    }
 
-        Session session = entityManager.unwrap(Session.class);
+    /**
+     * Runs every widget of the group concurrently on the widget batch executor and returns all results together.
+     * Each widget receives only the shared parameters its query declares. A widget that fails or does not finish
+     * within {@code widget.batch.timeout-seconds} is reported in place without failing the others.
+     */
+    public WidgetGroupExecutionDTO executeWidgetGroup(Long widgetGroupId, Map<String, Object> parameters) {
+        if (!widgetGroupRepository.existsById(widgetGroupId)) {
+            throw new ResourceNotFoundException("WidgetGroup not found with id: " + widgetGroupId);
+        }
+        rejectContextParameters(parameters);
+
+        List<Widget> widgets = widgetRepository.findByWidgetGroupId(widgetGroupId);
+        long started = System.nanoTime();
 
-        // Create query using Tuple to get column names
-        Query<Tuple> query = session.createQuery(dynamicQuery.getHqlQuery(), Tuple.class);
+        List<CompletableFuture<WidgetExecutionResultDTO>> futures = new ArrayList<>(widgets.size());
+        for (Widget widget : widgets) {
+            futures.add(submit(widget, parameters));
+        }
 
-        query.setParameter("tenantId", TenantContext.getTenantId());
-        query.setParameter("branchId", TenantContext.getBranchId());
+        long deadline = started + TimeUnit.SECONDS.toNanos(batchTimeoutSeconds);
+        List<WidgetExecutionResultDTO> results = new ArrayList<>(widgets.size());
+        for (int i = 0; i < widgets.size(); i++) {
+            results.add(await(widgets.get(i), futures.get(i), started, deadline));
+        }
 
-        // Set parameters if provided
-        if (parameters != null && !parameters.isEmpty()) {
-            parameters.forEach(query::setParameter);
+        int failed = (int) results.stream()
+                .filter(result -> result.getStatus() != WidgetExecutionStatus.SUCCEEDED)
+                .count();
+        if (failed > 0) {
+            log.warn("Widget group {}: {} of {} widgets did not complete", widgetGroupId, failed, widgets.size());
         }
 
-        List<Tuple> tuples = query.getResultList();
+        return WidgetGroupExecutionDTO.builder()
+                .widgetGroupId(widgetGroupId)
+                .elapsedMs(elapsedMs(started))
+                .failed(failed)
+                .widgets(results)
+                .build();
+    }
+
+    private QueryResultDTO execute(WidgetQueryPlan plan, Map<String, Object> parameters) {
+        Long tenantId = TenantContext.getTenantId();
+        Long branchId = TenantContext.getBranchId();
+        WidgetResultKey key = WidgetResultKey.of(tenantId, branchId, plan, parameters);
 
-        // Convert tuples to List of Maps
-        List<Map<String, Object>> results = new ArrayList<>();
-        for (Tuple tuple : tuples) {
-            Map<String, Object> row = new LinkedHashMap<>();
+        return widgetResultCache.get(key, plan.cacheTtlSeconds(),
+                () -> widgetQueryExecutor.execute(plan, parameters, tenantId, branchId));
+    }
 
-            // Get all elements with their aliases/column names
-            for (TupleElement<?> element : tuple.getElements()) {
-                String columnName = element.getAlias();
-                Object value = tuple.get(element);
-                row.put(columnName, value);
+    private CompletableFuture<WidgetExecutionResultDTO> submit(Widget widget, Map<String, Object> parameters) {
+        try {
+            return CompletableFuture.supplyAsync(() -> run(widget, parameters), widgetBatchTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(
+                    failure(widget, WidgetExecutionStatus.FAILED, 0, "Widget executor is saturated"));
+        }
+    }
+
+    // Runs on a widget batch thread; TenantContext is carried over by the executor's task decorator
+    private WidgetExecutionResultDTO run(Widget widget, Map<String, Object> parameters) {
+        long started = System.nanoTime();
+        try {
+            WidgetQueryPlan plan = widgetQueryRegistry.plan(widget.getQueryName());
+
+            Map<String, Object> declared = new HashMap<>();
+            if (parameters != null) {
+                parameters.forEach((name, value) -> {
+                    if (plan.parameterNames().contains(name)) {
+                        declared.put(name, value);
+                    }
+                });
             }
 
-            results.add(row);
+            QueryResultDTO result = execute(plan, declared);
+            return WidgetExecutionResultDTO.builder()
+                    .widgetId(widget.getId())
+                    .title(widget.getTitle())
+                    .queryName(widget.getQueryName())
+                    .status(WidgetExecutionStatus.SUCCEEDED)
+                    .elapsedMs(elapsedMs(started))
+                    .result(result)
+                    .build();
+        } catch (WidgetQueryTimeoutException e) {
+            log.warn("Widget {} ({}) timed out", widget.getId(), widget.getQueryName());
+            return failure(widget, WidgetExecutionStatus.TIMED_OUT, elapsedMs(started), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Widget {} ({}) failed: {}", widget.getId(), widget.getQueryName(), e.getMessage());
+            return failure(widget, WidgetExecutionStatus.FAILED, elapsedMs(started), e.getMessage());
+        }
+    }
+
+    private WidgetExecutionResultDTO await(Widget widget, CompletableFuture<WidgetExecutionResultDTO> future,
+                                           long started, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return failure(widget, WidgetExecutionStatus.TIMED_OUT, elapsedMs(started),
+                    "Did not complete within " + batchTimeoutSeconds + "s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure(widget, WidgetExecutionStatus.FAILED, elapsedMs(started), "Interrupted");
+        } catch (ExecutionException e) {
+            return failure(widget, WidgetExecutionStatus.FAILED, elapsedMs(started), e.getCause().getMessage());
         }
+    }
+
+    private static WidgetExecutionResultDTO failure(Widget widget, WidgetExecutionStatus status, long elapsedMs,
+                                                    String error) {
+        return WidgetExecutionResultDTO.builder()
+                .widgetId(widget.getId())
+                .title(widget.getTitle())
+                .queryName(widget.getQueryName())
+                .status(status)
+                .elapsedMs(elapsedMs)
+                .error(error)
+                .build();
+    }
+
+    private static void rejectContextParameters(Map<String, Object> parameters) {
+        if (parameters == null) {
+            return;
+        }
+        parameters.keySet().forEach(name -> {
+            if (WidgetQueryPlan.isContextParameter(name)) {
+                throw new IllegalArgumentException("Parameter '" + name + "' is taken from the caller's context");
+            }
+        });
+    }
 
-        return results;
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
     }
 
 }
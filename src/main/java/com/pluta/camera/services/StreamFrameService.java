@@ -1,6 +1,6 @@
 package com.pluta.camera.services;
 
-import com.pluta.camera.clients.StreamAnalysisClient;
+import com.pluta.camera.clients.StreamAnalysisBatcher;
 import com.pluta.camera.dtos.FrameAnalysisResultDTO;
 import com.pluta.camera.dtos.StreamAnalysisRequest;
 import com.pluta.camera.dtos.TableCoordinatesDTO;
@@ -10,14 +10,20 @@ import com.pluta.camera.entities.StreamEntity;
 import com.pluta.camera.entities.TableEntity;
 import com.pluta.camera.entities.Video;
 import com.pluta.camera.repositories.FrameRepository;
+import com.pluta.camera.repositories.StreamRepository;
 import com.pluta.camera.repositories.TableRepository;
 import com.pluta.camera.services.interfaces.IFrameService;
 import com.pluta.camera.services.mappers.FrameMapper;
+import com.pluta.camera.services.ingest.StreamTarget;
 import com.pluta.camera.services.mappers.TableMapper;
+import com.pluta.camera.services.pipeline.FrameChangeDetector;
+import com.pluta.camera.services.pipeline.SampledFrame;
+import com.pluta.camera.services.rollup.OccupancyRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -28,6 +34,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,5 +49,70 @@ import java.util.stream.Stream;
 @Slf4j
 public class StreamFrameService implements IFrameService {
 
+    private final StreamRepository streamRepository;
+    private final VideoFrameService videoFrameService;
+    private final OccupancyRollupService occupancyRollupService;
+    private final StreamAnalysisBatcher streamAnalysisBatcher;
 
-}
\ No newline at end of file
+    @Value("${stream.ingestion.confidence-threshold:0.4}")
+    private Double confidenceThreshold;
+
+    @Value("${stream.ingestion.zone-confidence-threshold:0.7}")
+    private Double zoneConfidenceThreshold;
+
+    /**
+     * The stream with its camera's table polygons, or empty when the stream no longer exists or is inactive.
+     */
+    @Transactional(readOnly = true)
+    public Optional<StreamTarget> loadTarget(Long streamId) {
+        return streamRepository.findById(streamId)
+                .filter(stream -> Boolean.TRUE.equals(stream.getActive()))
+                .map(stream -> new StreamTarget(stream, videoFrameService.tableCoordinates(stream)));
+    }
+
+    /**
+     * Detects one frame grabbed from a live stream and saves its rows. No transaction is held while the
+     * detector runs; the rows are written in their own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Frame> analyze(StreamTarget target, SampledFrame frame, FrameChangeDetector.Tracker tracker)
+            throws IOException, InterruptedException {
+        StreamEntity stream = target.stream();
+        List<FrameAnalysisResultDTO> results = videoFrameService.detectChanged(frame, false, confidenceThreshold,
+                zoneConfidenceThreshold, stream.getCamera().getId(), target.coordinates(), tracker);
+        if (results.isEmpty()) {
+            return List.of();
+        }
+
+        List<Frame> rows = videoFrameService.toFrames(results, confidenceThreshold, null, stream,
+                frame.offsetSeconds());
+        return occupancyRollupService.saveFrames(rows);
+    }
+
+    /**
+     * Has the remote analysis API grab and detect the stream, batched with the other streams sampled at about
+     * the same time, and saves the returned row on {@code saveExecutor} so the batcher's threads never wait on
+     * the database. The future completes once the row is saved.
+     *
+     * @param sourceUrl the stream URL with the camera's credentials; never logged
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<List<Frame>> analyzeRemotely(StreamTarget target, String sourceUrl, double offsetSeconds,
+                                                          Executor saveExecutor) {
+        StreamEntity stream = target.stream();
+        StreamAnalysisRequest request = StreamAnalysisRequest.builder()
+                .streamUrl(sourceUrl)
+                .cameraId(stream.getCamera().getId())
+                .streamId(stream.getId())
+                .confidenceThreshold(confidenceThreshold)
+                .build();
+        return streamAnalysisBatcher.submit(request).thenApplyAsync(result -> {
+            if (result == null || "FAILED".equals(result.getStatus())) {
+                throw new IllegalStateException("Remote analysis of stream " + stream.getId() + " failed");
+            }
+            List<Frame> rows = videoFrameService.toFrames(List.of(result), confidenceThreshold, null, stream,
+                    offsetSeconds);
+            return occupancyRollupService.saveFrames(rows);
+        }, saveExecutor);
+    }
+}
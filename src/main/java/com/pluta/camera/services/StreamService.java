@@ -5,9 +5,11 @@ import com.pluta.camera.dtos.StreamDTO;
 import com.pluta.camera.entities.*;
 import com.pluta.camera.exceptions.ResourceNotFoundException;
 import com.pluta.camera.repositories.*;
+import com.pluta.camera.services.ingest.StreamChangedEvent;
 import com.pluta.camera.services.mappers.StreamMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class StreamService {
     private final BranchRepository branchRepository;
     private final TenantRepository tenantRepository;
     private final StreamMapper streamMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public StreamDTO findById(Long id) {
         log.debug("Finding stream by id: {}", id);
@@ -156,6 +159,7 @@ public class StreamService {
 
         StreamEntity savedStream = streamRepository.save(stream);
         log.info("Created stream with id: {} for camera: {}", savedStream.getId(), camera.getId());
+        eventPublisher.publishEvent(new StreamChangedEvent(savedStream.getId()));
 
         return streamMapper.toDTO(savedStream);
     }
@@ -177,6 +181,7 @@ public class StreamService {
         streamMapper.updateEntityFromDTO(updateDTO, stream);
         StreamEntity updatedStream = streamRepository.save(stream);
         log.info("Updated stream with id: {}", id);
+        eventPublisher.publishEvent(new StreamChangedEvent(id));
 
         return streamMapper.toDTO(updatedStream);
     }
@@ -191,6 +196,7 @@ public class StreamService {
 
         streamRepository.deleteById(id);
         log.info("Deleted stream with id: {}", id);
+        eventPublisher.publishEvent(new StreamChangedEvent(id));
     }
 
     @Transactional
@@ -203,6 +209,7 @@ public class StreamService {
         stream.setActive(true);
         StreamEntity updatedStream = streamRepository.save(stream);
         log.info("Activated stream with id: {}", id);
+        eventPublisher.publishEvent(new StreamChangedEvent(id));
 
         return streamMapper.toDTO(updatedStream);
     }
@@ -217,6 +224,7 @@ public class StreamService {
         stream.setActive(false);
         StreamEntity updatedStream = streamRepository.save(stream);
         log.info("Deactivated stream with id: {}", id);
+        eventPublisher.publishEvent(new StreamChangedEvent(id));
 
         return streamMapper.toDTO(updatedStream);
     }
@@ -11,15 +11,19 @@ import com.pluta.camera.entities.StreamEntity;
 import com.pluta.camera.entities.TableEntity;
 import com.pluta.camera.entities.Video;
 import com.pluta.camera.exceptions.ResourceNotFoundException;
-import com.pluta.camera.repositories.FrameRepository;
 import com.pluta.camera.repositories.TableRepository;
+import com.pluta.camera.services.detector.RawFrame;
 import com.pluta.camera.services.interfaces.IFrameService;
 import com.pluta.camera.services.mappers.FrameMapper;
 import com.pluta.camera.services.mappers.TableMapper;
+import com.pluta.camera.services.pipeline.FrameChangeDetector;
+import com.pluta.camera.services.pipeline.SampledFrame;
+import com.pluta.camera.services.rollup.OccupancyRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -44,7 +48,7 @@ public class VideoFrameService implements IFrameService {
     private final TableRepository tableRepository;
     private final TableMapper tableMapper;
     private final FrameMapper frameMapper;
-    private final FrameRepository frameRepository;
+    private final OccupancyRollupService occupancyRollupService;
     private final StreamAnalysisClient streamAnalysisClient;
     @Value("${upload-dir:temp}")
     private String tempDir;
@@ -54,10 +58,123 @@ public class VideoFrameService implements IFrameService {
                               Double frameTimeSecond) throws IOException,
             InterruptedException {
 
-        List<FrameAnalysisResultDTO> results = analyze(file, stream.getUrl(), confidenceThreshold,
-                zoneConfidenceThreshold, video.getCamera().getId(), video.getZone().getId(), video.getBranch().getId(),
+        occupancyRollupService.saveFrames(buildFrames(file, confidenceThreshold, zoneConfidenceThreshold, video, stream,
+                frameTimeSecond));
+    }
+
+    /**
+     * Analyses one frame and returns the unsaved {@link Frame} rows (one per table), so callers
+     * such as the video pipeline can batch the inserts themselves.
+     */
+    public List<Frame> buildFrames(File file, Double confidenceThreshold,
+                                   Double zoneConfidenceThreshold, Video video, StreamEntity stream,
+                                   Double frameTimeSecond) throws IOException,
+            InterruptedException {
+
+        // One detector pass for the whole camera frame, zone filtering applied per table
+        List<FrameAnalysisResultDTO> results = detect(file, confidenceThreshold, zoneConfidenceThreshold,
+                video.getCamera().getId(), tableCoordinates(video));
+
+        return toFrames(results, confidenceThreshold, video, stream, frameTimeSecond);
+    }
+
+    /**
+     * Same as {@link #buildFrames(File, Double, Double, Video, StreamEntity, Double)} for a frame decoded in
+     * memory. No image is written to disk unless {@code annotate} is set.
+     */
+    public List<Frame> buildFrames(RawFrame rawFrame, String frameName, boolean annotate,
+                                   Double confidenceThreshold, Double zoneConfidenceThreshold, Video video,
+                                   StreamEntity stream, Double frameTimeSecond) throws IOException,
+            InterruptedException {
+
+        List<FrameAnalysisResultDTO> results = detect(rawFrame, frameName, annotate, confidenceThreshold,
+                zoneConfidenceThreshold, video.getCamera().getId(), tableCoordinates(video));
+
+        return toFrames(results, confidenceThreshold, video, stream, frameTimeSecond);
+    }
+
+    /**
+     * Table polygons of the video's camera as flat x,y lists keyed by table id, in the form the detector takes.
+     */
+    public Map<Long, List<String>> tableCoordinates(Video video) {
+        return tableCoordinates(video.getCamera().getId(), video.getZone().getId(), video.getBranch().getId(),
                 video.getTenant().getId());
+    }
+
+    /**
+     * Table polygons of the stream's camera, as for {@link #tableCoordinates(Video)}.
+     */
+    public Map<Long, List<String>> tableCoordinates(StreamEntity stream) {
+        return tableCoordinates(stream.getCamera().getId(), stream.getZone().getId(), stream.getBranch().getId(),
+                stream.getTenant().getId());
+    }
 
+    /**
+     * Detects a sampled frame, sending only the tables whose image changed according to the tracker and
+     * reusing the tracker's earlier results for the rest. Holds no transaction while the detector runs.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<FrameAnalysisResultDTO> detectChanged(SampledFrame frame, boolean annotate, Double confidenceThreshold,
+                                                      Double zoneConfidenceThreshold, Long cameraId,
+                                                      Map<Long, List<String>> coordinatesByTable,
+                                                      FrameChangeDetector.Tracker tracker)
+            throws IOException, InterruptedException {
+        FrameChangeDetector.Decision decision = tracker.decide(frame);
+        List<FrameAnalysisResultDTO> results = new ArrayList<>(decision.reused());
+        if (decision.detect().isEmpty()) {
+            return results;
+        }
+
+        Map<Long, List<String>> changed = coordinatesByTable.entrySet().stream()
+                .filter(entry -> decision.detect().contains(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        List<FrameAnalysisResultDTO> detected = frame.isInMemory()
+                ? detect(frame.rawFrame(), frame.imagePath(), annotate, confidenceThreshold, zoneConfidenceThreshold,
+                        cameraId, changed)
+                : detect(new File(frame.imagePath()), confidenceThreshold, zoneConfidenceThreshold, cameraId,
+                        changed);
+        tracker.record(decision, detected);
+        results.addAll(detected);
+        return results;
+    }
+
+    /**
+     * Runs the detector on a frame on disk for the given tables only, without building {@link Frame} rows.
+     */
+    public List<FrameAnalysisResultDTO> detect(File file, Double confidenceThreshold, Double zoneConfidenceThreshold,
+                                               Long cameraId, Map<Long, List<String>> coordinatesByTable)
+            throws IOException, InterruptedException {
+        if (coordinatesByTable.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return pythonExecutor.executeBatchAnalysis(file.getAbsolutePath(), confidenceThreshold,
+                zoneConfidenceThreshold, cameraId, coordinatesByTable);
+    }
+
+    /**
+     * In-memory counterpart of {@link #detect(File, Double, Double, Long, Map)}.
+     */
+    public List<FrameAnalysisResultDTO> detect(RawFrame rawFrame, String frameName, boolean annotate,
+                                               Double confidenceThreshold, Double zoneConfidenceThreshold,
+                                               Long cameraId, Map<Long, List<String>> coordinatesByTable)
+            throws IOException, InterruptedException {
+        if (coordinatesByTable.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return pythonExecutor.executeBatchAnalysis(rawFrame, frameName, confidenceThreshold,
+                zoneConfidenceThreshold, cameraId, coordinatesByTable, annotate);
+    }
+
+    public boolean supportsInMemoryFrames() {
+        return pythonExecutor.supportsInMemoryFrames();
+    }
+
+    /**
+     * Turns detector results into unsaved {@link Frame} rows, one per table, for the video or, when the video
+     * is null, for the live stream.
+     */
+    public List<Frame> toFrames(List<FrameAnalysisResultDTO> results, Double confidenceThreshold, Video video,
+                                StreamEntity stream, Double frameTimeSecond) {
 
         List<Frame> frames = frameMapper.toEntityList(results);
 
@@ -79,8 +196,8 @@ public class VideoFrameService implements IFrameService {
 
             frame.setVideo(video);
             frame.setStream(stream);
-            frame.setBranch(video.getBranch());
-            frame.setTenant(video.getTenant());
+            frame.setBranch(video != null ? video.getBranch() : stream.getBranch());
+            frame.setTenant(video != null ? video.getTenant() : stream.getTenant());
             frame.setConfidenceThreshold(confidenceThreshold);
             frame.setFrameOffsetSeconds(frameTimeSecond);
 
@@ -95,21 +212,17 @@ public class VideoFrameService implements IFrameService {
             }
         }
 
-        frameRepository.saveAll(frames);
+        return frames;
     }
 
 
-    private List<FrameAnalysisResultDTO> analyze(File file, String url, Double confidenceThreshold,
-                                                Double zoneConfidenceThreshold, Long cameraId,
-                                                Long zoneId, Long branchId, Long tenantId) throws IOException,
-            InterruptedException {
-
+    private Map<Long, List<String>> tableCoordinates(Long cameraId, Long zoneId, Long branchId, Long tenantId) {
         List<TableEntity> tables = tableRepository.findByTenantIdAndBranchIdAndZoneIdAndCameraId(tenantId, branchId,
                 zoneId, cameraId);
 
         List<TableDTO> tableDTOS = tableMapper.toDTOList(tables);
 
-        Map<Long, List<String>> coo = tableDTOS.stream()
+        return tableDTOS.stream()
                 .flatMap(t -> t.getCoordinates().stream())
                 .sorted(Comparator.comparing(TableCoordinatesDTO::getId))
                 .collect(Collectors.groupingBy(
@@ -117,23 +230,6 @@ public class VideoFrameService implements IFrameService {
                         Collectors.flatMapping( c -> Stream.of(String.valueOf(c.getX()), String.valueOf(c.getY())),
                                 Collectors.toList() )
                 ));
-
-
-        String paths = file.getAbsolutePath();
-
-        List<FrameAnalysisResultDTO> frames = new ArrayList<>();
-
-        for (Map.Entry<Long, List<String>> entry : coo.entrySet()) {
-            Long key = entry.getKey();
-            List<String> value = entry.getValue();
-
-            FrameAnalysisResultDTO frameDto = pythonExecutor.executeAnalysis(paths, confidenceThreshold,
-                    zoneConfidenceThreshold, cameraId, key, value);
-          frames.add(frameDto);
-        }
-
-        return frames;
-
     }
 
 
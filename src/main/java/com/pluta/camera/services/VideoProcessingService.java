@@ -1,11 +1,16 @@
 package com.pluta.camera.services;
 
 
+import com.pluta.camera.dtos.CursorPageDTO;
 import com.pluta.camera.dtos.VideoResponseDto;
 import com.pluta.camera.entities.*;
+import com.pluta.camera.enums.ProcessingStatus;
+import com.pluta.camera.exceptions.SchedulerSaturatedException;
 import com.pluta.camera.exceptions.ResourceNotFoundException;
 import com.pluta.camera.repositories.*;
 import com.pluta.camera.services.mappers.VideoMapper;
+import com.pluta.camera.services.scheduler.VideoJobService;
+import com.pluta.camera.utils.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
@@ -35,13 +40,16 @@ public class VideoProcessingService {
 
     private final VideoRepository videoRepository;
     private final VideoMapper  videoMapper;
-    private final AsyncVideoProcessor asyncVideoProcessor;
+    private final VideoJobService videoJobService;
     private final BranchRepository branchRepository;
     private final TenantRepository tenantRepository;
     private final CameraRepository cameraRepository;
     private final ZoneRepository zoneRepository;
 
     public Long uploadAndProcessVideo(MultipartFile file, Long tenantId, Long branchId, Long zoneId, Long cameraId) throws IOException {
+        // Refuse the upload before storing it if the tenant's processing queue is already full
+        videoJobService.ensureCapacity(tenantId);
+
         // Create directories if they don't exist
         createDirectories();
 
@@ -92,8 +100,16 @@ public class VideoProcessingService {
 
         Video savedVideo = videoRepository.save(video);
 
-        // Start async processing using separate service
-        asyncVideoProcessor.processVideoAsync(savedVideo.getId(), videoPath);
+        // Queue a durable job; any node picks it up
+        try {
+            videoJobService.enqueue(savedVideo);
+        } catch (SchedulerSaturatedException e) {
+            // Lost the race for the last slot after the capacity check
+            savedVideo.setStatus(ProcessingStatus.FAILED);
+            savedVideo.setErrorMessage(e.getMessage());
+            videoRepository.save(savedVideo);
+            throw e;
+        }
 
         return savedVideo.getId();
     }
@@ -107,6 +123,14 @@ public class VideoProcessingService {
         return videoMapper.toDTOList(videos);
     }
 
+    public CursorPageDTO<VideoResponseDto> scrollVideosByTenantAndBranch(String cursor, int size, Long tenantId,
+                                                                         Long branchId) {
+        return KeysetPagination.CREATED_AT.toPage(
+                videoRepository.scrollByTenantIdAndBranchId(tenantId, branchId,
+                        KeysetPagination.CREATED_AT.position(cursor), size),
+                videoMapper::toDTO);
+    }
+
     public VideoResponseDto getVideoDetails(Long videoId) {
         Video video = videoRepository.findById(videoId)
                 .orElseThrow(() -> new RuntimeException("Video not found"));
@@ -11,6 +11,7 @@ import com.pluta.camera.repositories.WidgetGroupRepository;
 import com.pluta.camera.repositories.WidgetRepository;
 import com.pluta.camera.services.mappers.WidgetGroupMapper;
 import com.pluta.camera.services.mappers.WidgetMapper;
+import com.pluta.camera.services.query.WidgetQueryRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
@@ -21,6 +22,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +37,7 @@ public class WidgetService  {
     private final WidgetRepository widgetRepository;
     private final WidgetMapper widgetMapper;
     private final WidgetGroupMapper widgetGroupMapper;
+    private final WidgetQueryRegistry widgetQueryRegistry;
 
 
     // ========== WidgetGroup CRUD Operations ==========
@@ -78,6 +82,7 @@ public class WidgetService  {
         WidgetGroup widgetGroup = widgetGroupRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("WidgetGroup not found with id: " + id));
 
+        evictQueryPlans(widgetGroup.getWidgets());
         widgetGroupMapper.updateEntityFromDTO(updateDTO, widgetGroup);
         WidgetGroup updatedWidgetGroup = widgetGroupRepository.save(widgetGroup);
 
@@ -92,6 +97,7 @@ public class WidgetService  {
             throw new ResourceNotFoundException("widgetGroup not found with id: " + id);
         }
 
+        evictQueryPlans(widgetRepository.findByWidgetGroupId(id));
         widgetGroupRepository.deleteById(id);
         log.info("Deleted widget group with id: {}", id);
     }
@@ -143,8 +149,11 @@ public class WidgetService  {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format("Widget not found with id: %d in widget group: %d", widgetId, widgetGroupId)));
 
+        // Both names: the update may rename the query
+        String previousQueryName = widget.getQueryName();
         widgetMapper.updateEntityFromDTO(updateDTO, widget);
         Widget updatedWidget = widgetRepository.save(widget);
+        widgetQueryRegistry.evictAfterCommit(Arrays.asList(previousQueryName, updatedWidget.getQueryName()));
 
         log.info("Updated widget with id: {} in widget group: {}", widgetId, widgetGroupId);
         return widgetMapper.toDTO(updatedWidget);
@@ -161,11 +170,16 @@ public class WidgetService  {
         widgetGroup.removeWidget(widget);
 
         widgetRepository.delete(widget);
+        widgetQueryRegistry.evictAfterCommit(Collections.singletonList(widget.getQueryName()));
         log.info("Deleted widget with id: {} from widget group: {}", widgetId, widgetGroupId);
     }
 
     // ========== Utility Methods ==========
 
+    private void evictQueryPlans(List<Widget> widgets) {
+        widgetQueryRegistry.evictAfterCommit(widgets.stream().map(Widget::getQueryName).toList());
+    }
+
     @Transactional(readOnly = true)
     public boolean existsById(Long id) {
         return widgetGroupRepository.existsById(id);
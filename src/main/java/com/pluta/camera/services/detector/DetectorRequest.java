@@ -0,0 +1,48 @@
+package com.pluta.camera.services.detector;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Single analysis request sent to a warm detector worker (one JSON line on its stdin).
+ * Field names follow the Python side of the protocol in analyze_video.py.
+ * When {@code zones} is set the worker runs detection once and evaluates every zone against it.
+ * When {@code frameBytes} is set, that many raw BGR bytes follow the request line and
+ * {@code imagePath} is only used to name the annotated image.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DetectorRequest(
+        @JsonProperty("image_path") String imagePath,
+        @JsonProperty("camera_id") String cameraId,
+        @JsonProperty("table_id") Long tableId,
+        @JsonProperty("zone") List<Integer> zone,
+        @JsonProperty("confidence") Double confidence,
+        @JsonProperty("zone_threshold") Double zoneThreshold,
+        @JsonProperty("output_dir") String outputDir,
+        @JsonProperty("zones") List<DetectorZone> zones,
+        @JsonProperty("frame_width") Integer frameWidth,
+        @JsonProperty("frame_height") Integer frameHeight,
+        @JsonProperty("frame_bytes") Integer frameBytes,
+        @JsonProperty("annotate") Boolean annotate) {
+
+    public static DetectorRequest forTable(String imagePath, String cameraId, Long tableId, List<Integer> zone,
+                                           Double confidence, Double zoneThreshold, String outputDir) {
+        return new DetectorRequest(imagePath, cameraId, tableId, zone, confidence, zoneThreshold, outputDir, null,
+                null, null, null, null);
+    }
+
+    public static DetectorRequest forZones(String imagePath, String cameraId, List<DetectorZone> zones,
+                                           Double confidence, Double zoneThreshold, String outputDir) {
+        return new DetectorRequest(imagePath, cameraId, null, null, confidence, zoneThreshold, outputDir, zones,
+                null, null, null, null);
+    }
+
+    public static DetectorRequest forRawZones(String frameName, RawFrame frame, String cameraId,
+                                              List<DetectorZone> zones, Double confidence, Double zoneThreshold,
+                                              String outputDir, boolean annotate) {
+        return new DetectorRequest(frameName, cameraId, null, null, confidence, zoneThreshold, outputDir, zones,
+                frame.width(), frame.height(), frame.bgr().length, annotate);
+    }
+}
@@ -0,0 +1,181 @@
+package com.pluta.camera.services.detector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One long-lived {@code analyze_video.py --serve} process with the YOLO model kept resident.
+ * Requests are written as JSON lines on stdin, optionally followed by a binary frame payload,
+ * and answered by one JSON line on stdout.
+ * A worker handles one request at a time; {@link DetectorWorkerPool} takes care of concurrency.
+ */
+@Slf4j
+class DetectorWorker {
+
+    private static final String READY = "READY";
+    private static final String PONG = "PONG";
+
+    private final int index;
+    private final Process process;
+    private final OutputStream stdin;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final AtomicLong requestSequence = new AtomicLong();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final ObjectMapper objectMapper;
+
+    private DetectorWorker(int index, Process process, ObjectMapper objectMapper) {
+        this.index = index;
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.stdin = new BufferedOutputStream(process.getOutputStream(), 1 << 16);
+
+        pump(process.getInputStream(), "stdout", line -> {
+            if (line.startsWith("{")) {
+                responses.offer(line);
+            } else {
+                log.debug("Detector worker {}: {}", index, line);
+            }
+        });
+        pump(process.getErrorStream(), "stderr", line -> log.debug("Detector worker {}: {}", index, line));
+    }
+
+    /**
+     * Starts the process and blocks until the model is loaded and the worker reports READY.
+     */
+    static DetectorWorker start(int index, List<String> command, ObjectMapper objectMapper,
+                                long startupTimeoutMillis) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).start();
+        DetectorWorker worker = new DetectorWorker(index, process, objectMapper);
+
+        String line = worker.responses.poll(startupTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (line == null || !READY.equals(objectMapper.readTree(line).path("status").asText())) {
+            worker.stop();
+            throw new IOException("Detector worker " + index + " did not become ready within "
+                    + startupTimeoutMillis + " ms");
+        }
+
+        log.info("Detector worker {} ready (pid {})", index, process.pid());
+        return worker;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Sends one request and waits for its response. Any {@link IOException} means the worker
+     * is no longer usable and must be replaced.
+     */
+    JsonNode send(ObjectNode request, long timeoutMillis) throws IOException, InterruptedException {
+        return send(request, null, timeoutMillis);
+    }
+
+    /**
+     * Same as {@link #send(ObjectNode, long)}, with {@code payload} written verbatim right after the
+     * request line. The request must announce the payload length so the worker knows how much to read.
+     */
+    JsonNode send(ObjectNode request, byte[] payload, long timeoutMillis)
+            throws IOException, InterruptedException {
+        // A lock rather than synchronized: a virtual thread waiting on the worker must not pin its carrier
+        sendLock.lock();
+        try {
+            return exchange(request, payload, timeoutMillis);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private JsonNode exchange(ObjectNode request, byte[] payload, long timeoutMillis)
+            throws IOException, InterruptedException {
+        String requestId = index + "-" + requestSequence.incrementAndGet();
+        request.put("id", requestId);
+
+        responses.clear();
+        stdin.write(request.toString().getBytes(StandardCharsets.UTF_8));
+        stdin.write('\n');
+        if (payload != null) {
+            stdin.write(payload);
+        }
+        stdin.flush();
+
+        String line = responses.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (line == null) {
+            if (!process.isAlive()) {
+                throw new IOException("Detector worker " + index + " exited with code " + process.exitValue());
+            }
+            throw new IOException("Detector worker " + index + " timed out after " + timeoutMillis + " ms");
+        }
+
+        JsonNode response = objectMapper.readTree(line);
+        if (!requestId.equals(response.path("requestId").asText())) {
+            throw new IOException("Detector worker " + index + " answered out of order: expected "
+                    + requestId + " but got " + response.path("requestId").asText());
+        }
+        return response;
+    }
+
+    boolean ping(long timeoutMillis) {
+        try {
+            return PONG.equals(send(objectMapper.createObjectNode().put("op", "ping"), timeoutMillis)
+                    .path("status").asText());
+        } catch (IOException e) {
+            log.warn("Detector worker {} failed health check: {}", index, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void stop() {
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            log.debug("Error closing stdin of detector worker {}: {}", index, e.getMessage());
+        }
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pump(InputStream stream, String name, Consumer<String> sink) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    sink.accept(line);
+                }
+            } catch (IOException e) {
+                log.debug("Detector worker {} {} closed: {}", index, name, e.getMessage());
+            }
+        }, "detector-worker-" + index + "-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,231 @@
+package com.pluta.camera.services.detector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool of warm detector workers started once at boot.
+ * Each worker keeps the YOLO weights loaded, so a request only pays for inference instead of
+ * interpreter start-up plus model load. Crashed or hung workers are replaced in the background
+ * and idle workers are pinged periodically.
+ */
+@Component
+@Slf4j
+public class DetectorWorkerPool {
+
+    private static final String COMPLETED = "COMPLETED";
+
+    @Value("${analysis.python.script-path}")
+    private String scriptPath;
+
+    @Value("${analysis.python.python-executable}")
+    private String pythonExecutable;
+
+    @Value("${analysis.python.worker-pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${analysis.python.worker-pool.size:2}")
+    private int size;
+
+    @Value("${analysis.python.worker-pool.startup-timeout-seconds:120}")
+    private long startupTimeoutSeconds;
+
+    @Value("${analysis.python.worker-pool.request-timeout-seconds:60}")
+    private long requestTimeoutSeconds;
+
+    @Value("${analysis.python.worker-pool.acquire-timeout-seconds:120}")
+    private long acquireTimeoutSeconds;
+
+    @Value("${analysis.python.worker-pool.health-check-timeout-seconds:5}")
+    private long healthCheckTimeoutSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<DetectorWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final Set<Integer> starting = ConcurrentHashMap.newKeySet();
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "detector-worker-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AtomicReferenceArray<DetectorWorker> workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Detector worker pool is disabled, analyses will spawn one Python process per call");
+            return;
+        }
+
+        log.info("Starting {} detector workers: {} {} --serve", size, pythonExecutable, scriptPath);
+        workers = new AtomicReferenceArray<>(size);
+        running = true;
+        for (int i = 0; i < size; i++) {
+            scheduleStart(i);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        starter.shutdownNow();
+        if (workers == null) {
+            return;
+        }
+        for (int i = 0; i < workers.length(); i++) {
+            DetectorWorker worker = workers.getAndSet(i, null);
+            if (worker != null) {
+                worker.stop();
+            }
+        }
+        idleWorkers.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSize() {
+        return enabled ? size : 0;
+    }
+
+    public int getIdleCount() {
+        return idleWorkers.size();
+    }
+
+    /**
+     * Runs one analysis on the next free worker.
+     *
+     * @return the detector's JSON result, in the same shape the one-shot script prints
+     */
+    public String analyze(DetectorRequest request) throws IOException, InterruptedException {
+        return analyze(request, null);
+    }
+
+    /**
+     * Runs one analysis on an in-memory frame; the pixels are streamed to the worker after the request line.
+     */
+    public String analyze(DetectorRequest request, RawFrame frame) throws IOException, InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Detector worker pool is not running");
+        }
+
+        DetectorWorker worker = idleWorkers.poll(acquireTimeoutSeconds, TimeUnit.SECONDS);
+        if (worker == null) {
+            throw new IllegalStateException("No detector worker available after " + acquireTimeoutSeconds + " s");
+        }
+
+        JsonNode response;
+        boolean exchanged = false;
+        try {
+            ObjectNode payload = objectMapper.valueToTree(request);
+            response = worker.send(payload, frame != null ? frame.bgr() : null,
+                    TimeUnit.SECONDS.toMillis(requestTimeoutSeconds));
+            exchanged = true;
+        } catch (IOException e) {
+            log.error("Detector worker {} failed, replacing it: {}", worker.getIndex(), e.getMessage());
+            throw e;
+        } finally {
+            // An interrupted or half-sent exchange may still have a reply in flight, so never reuse that worker
+            if (exchanged) {
+                idleWorkers.offer(worker);
+            } else {
+                retire(worker);
+            }
+        }
+
+        if (!COMPLETED.equals(response.path("status").asText())) {
+            throw new RuntimeException("Detector worker analysis failed for " + request.imagePath()
+                    + ": " + response.path("error_message").asText());
+        }
+
+        ((ObjectNode) response).remove("requestId");
+        return response.toString();
+    }
+
+    /**
+     * Pings idle workers and (re)starts any slot whose worker died or never came up.
+     */
+    @Scheduled(fixedDelayString = "${analysis.python.worker-pool.health-check-interval-ms:30000}")
+    public void healthCheck() {
+        if (!running) {
+            return;
+        }
+
+        List<DetectorWorker> idle = new ArrayList<>();
+        idleWorkers.drainTo(idle);
+        for (DetectorWorker worker : idle) {
+            if (worker.isAlive() && worker.ping(TimeUnit.SECONDS.toMillis(healthCheckTimeoutSeconds))) {
+                idleWorkers.offer(worker);
+            } else {
+                retire(worker);
+            }
+        }
+
+        for (int i = 0; i < workers.length(); i++) {
+            DetectorWorker worker = workers.get(i);
+            if (worker == null) {
+                scheduleStart(i);
+            } else if (!worker.isAlive()) {
+                retire(worker);
+            }
+        }
+    }
+
+    private void retire(DetectorWorker worker) {
+        // Only the first caller to retire this exact instance restarts its slot
+        if (workers.compareAndSet(worker.getIndex(), worker, null)) {
+            idleWorkers.remove(worker);
+            worker.stop();
+            scheduleStart(worker.getIndex());
+        }
+    }
+
+    private void scheduleStart(int index) {
+        if (!running || !starting.add(index)) {
+            return;
+        }
+
+        starter.execute(() -> {
+            try {
+                DetectorWorker worker = DetectorWorker.start(index, command(), objectMapper,
+                        TimeUnit.SECONDS.toMillis(startupTimeoutSeconds));
+                if (running && workers.compareAndSet(index, null, worker)) {
+                    idleWorkers.offer(worker);
+                } else {
+                    worker.stop();
+                }
+            } catch (IOException e) {
+                log.error("Failed to start detector worker {}: {}", index, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                starting.remove(index);
+            }
+        });
+    }
+
+    private List<String> command() {
+        return List.of(pythonExecutable, scriptPath, "--serve");
+    }
+}
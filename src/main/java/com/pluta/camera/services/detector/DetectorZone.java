@@ -0,0 +1,13 @@
+package com.pluta.camera.services.detector;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Table polygon evaluated against the detections of a multi-zone request.
+ */
+public record DetectorZone(
+        @JsonProperty("table_id") Long tableId,
+        @JsonProperty("zone") List<Integer> zone) {
+}
@@ -0,0 +1,21 @@
+package com.pluta.camera.services.detector;
+
+/**
+ * Decoded frame as packed 8-bit BGR pixels (ffmpeg {@code -pix_fmt bgr24}), the layout OpenCV uses natively.
+ * Sent to a detector worker right after the request line, so the frame never touches the disk.
+ */
+public record RawFrame(int width, int height, byte[] bgr) {
+
+    public static final int CHANNELS = 3;
+
+    public RawFrame {
+        if (bgr == null || bgr.length != frameSize(width, height)) {
+            throw new IllegalArgumentException("Expected " + frameSize(width, height) + " BGR bytes for a "
+                    + width + "x" + height + " frame");
+        }
+    }
+
+    public static int frameSize(int width, int height) {
+        return width * height * CHANNELS;
+    }
+}
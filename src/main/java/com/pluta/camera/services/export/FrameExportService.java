@@ -0,0 +1,214 @@
+package com.pluta.camera.services.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluta.camera.dtos.FrameExportFilter;
+import com.pluta.camera.enums.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams frame rows straight from a forward-only JDBC cursor to the response. Only one fetch batch is
+ * held in memory at a time and the first rows are written before the query has been fully read, so the
+ * export size is bounded by the client, not by the heap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FrameExportService {
+
+    private static final String SELECT = "SELECT f.id, f.created_at, f.branch_id, t.zone_id, t.camera_id, " +
+            "f.table_id, f.video_id, f.stream_id, f.frame_offset_seconds, f.status, f.confidence_threshold, " +
+            "f.tables_detected, f.chairs_detected, f.benches_detected, f.couches_detected, " +
+            "f.persons_detected, f.persons_sitting, f.occupied_chairs, f.unoccupied_chairs, " +
+            "f.occupied_benches, f.unoccupied_benches, f.occupied_couches, f.unoccupied_couches " +
+            "FROM frame f JOIN table_entity t ON t.id = f.table_id " +
+            "WHERE f.tenant_id = ?";
+
+    // 1-based index of created_at, read as OffsetDateTime rather than the driver's own timestamp type
+    private static final int CREATED_AT_COLUMN = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.frames.fetch-size:1000}")
+    private int fetchSize;
+
+    public StreamingResponseBody export(FrameExportFilter filter, ExportFormat format) {
+        if (filter.getTenantId() == null) {
+            throw new IllegalArgumentException("Tenant is required for frame export");
+        }
+        return out -> {
+            long started = System.currentTimeMillis();
+            long rows = format == ExportFormat.CSV ? writeCsv(filter, out) : writeNdjson(filter, out);
+            log.info("Exported {} frame rows for tenant {} as {} in {} ms", rows, filter.getTenantId(), format,
+                    System.currentTimeMillis() - started);
+        };
+    }
+
+    private long writeNdjson(FrameExportFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            return stream(filter, new ExportSink() {
+                @Override
+                public void header(List<String> labels) {
+                }
+
+                @Override
+                public void row(ResultSet rs, List<String> labels) throws SQLException, IOException {
+                    json.writeStartObject();
+                    for (int i = 0; i < labels.size(); i++) {
+                        json.writeFieldName(labels.get(i));
+                        writeJsonValue(json, value(rs, i + 1));
+                    }
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+            });
+        }
+    }
+
+    private long writeCsv(FrameExportFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = stream(filter, new ExportSink() {
+            @Override
+            public void header(List<String> labels) throws IOException {
+                writer.write(String.join(",", labels));
+                writer.write('\n');
+            }
+
+            @Override
+            public void row(ResultSet rs, List<String> labels) throws SQLException, IOException {
+                for (int i = 0; i < labels.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(value(rs, i + 1)));
+                }
+                writer.write('\n');
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long stream(FrameExportFilter filter, ExportSink sink) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> params = new ArrayList<>();
+        params.add(filter.getTenantId());
+        if (filter.getBranchId() != null) {
+            sql.append(" AND f.branch_id = ?");
+            params.add(filter.getBranchId());
+        }
+        if (filter.getCameraId() != null) {
+            sql.append(" AND t.camera_id = ?");
+            params.add(filter.getCameraId());
+        }
+        if (filter.getTableId() != null) {
+            sql.append(" AND f.table_id = ?");
+            params.add(filter.getTableId());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND f.created_at >= ?");
+            params.add(filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND f.created_at < ?");
+            params.add(filter.getTo());
+        }
+        sql.append(" ORDER BY f.created_at, f.id");
+
+        PreparedStatementCreator statement = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        };
+
+        ResultSetExtractor<Long> extractor = rs -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            List<String> labels = new ArrayList<>(meta.getColumnCount());
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                labels.add(meta.getColumnLabel(i).toLowerCase());
+            }
+            long rows = 0;
+            try {
+                sink.header(labels);
+                while (rs.next()) {
+                    sink.row(rs, labels);
+                    rows++;
+                }
+            } catch (IOException e) {
+                // Client went away; surfaces below as the IOException it is
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        };
+
+        try {
+            Long rows = jdbcTemplate.query(statement, extractor);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        if (column == CREATED_AT_COLUMN) {
+            OffsetDateTime createdAt = rs.getObject(column, OffsetDateTime.class);
+            return createdAt != null ? createdAt.toString() : null;
+        }
+        return rs.getObject(column);
+    }
+
+    private static void writeJsonValue(JsonGenerator json, Object value) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Number number) {
+            json.writeNumber(number.toString());
+        } else {
+            json.writeString(value.toString());
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private interface ExportSink {
+        void header(List<String> labels) throws IOException;
+
+        void row(ResultSet rs, List<String> labels) throws SQLException, IOException;
+    }
+}
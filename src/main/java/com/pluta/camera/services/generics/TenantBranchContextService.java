@@ -1,9 +1,11 @@
 package com.pluta.camera.services.generics;
 
 import com.pluta.camera.context.TenantContext;
+import com.pluta.camera.dtos.CursorPageDTO;
 import com.pluta.camera.exceptions.ResourceNotFoundException;
 import com.pluta.camera.repositories.generics.GenericRepository;
 import com.pluta.camera.services.mappers.GenericMapper;
+import com.pluta.camera.utils.KeysetPagination;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +30,14 @@ public abstract class TenantBranchContextService<E,D> {
         return entities.map(getGenericMapper()::toDTO);
     }
 
+    public CursorPageDTO<D> scrollAllByTenantIdAndBranchId(String cursor, int size) {
+        log.debug("Scrolling {} from cursor: {}", this.getClass().getName(), cursor);
+        return KeysetPagination.CREATED_AT.toPage(
+                getGenericRepository().scrollByTenantIdAndBranchId(TenantContext.getTenantId(), TenantContext.getBranchId(),
+                        KeysetPagination.CREATED_AT.position(cursor), size),
+                getGenericMapper()::toDTO);
+    }
+
 
     public long countByTenantIdAndBranchId() {
         return getGenericRepository().countByTenantIdAndBranchId(TenantContext.getTenantId(), TenantContext.getBranchId());
@@ -0,0 +1,289 @@
+package com.pluta.camera.services.ingest;
+
+import com.pluta.camera.configs.BlockingIoThreads;
+import com.pluta.camera.repositories.StreamLeaseRepository;
+import com.pluta.camera.repositories.StreamNodeRepository;
+import com.pluta.camera.repositories.StreamRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Splits the active streams between the application nodes so that every stream is ingested by exactly one of
+ * them.
+ * <p>
+ * Each node heart-beats a row in {@code stream_node} and holds a lease per stream in {@code stream_lease}. On
+ * every round a node computes, by rendezvous hashing over the live nodes, which streams should be its own; it
+ * releases leases on streams that now belong elsewhere, renews the ones it keeps and claims the rest once their
+ * previous owner has released them or stopped renewing. A node joining or leaving therefore only moves the
+ * streams whose hash winner changed, and a dead node's streams are taken over within about
+ * {@code lease-seconds} plus one heartbeat interval.
+ * <p>
+ * A node that cannot reach the database gives its streams up locally when its leases run out, so two nodes never
+ * ingest the same stream for longer than the lease overlap. Lease expiry is computed and compared on the
+ * database clock, so clock skew between nodes does not let two of them hold the same stream.
+ * <p>
+ * Heartbeats run on their own thread rather than the shared Spring scheduler, where a slow job poll or health
+ * check could delay a renewal past the lease and hand this node's streams away.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamAssignmentCoordinator {
+
+    private final StreamRepository streamRepository;
+    private final StreamNodeRepository streamNodeRepository;
+    private final StreamLeaseRepository streamLeaseRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final BlockingIoThreads blockingIoThreads;
+
+    @Value("${stream.ingestion.enabled:true}")
+    private boolean ingestionEnabled;
+
+    @Value("${stream.sharding.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stream.sharding.node-id:${video.jobs.node-id:}}")
+    private String configuredNodeId;
+
+    @Value("${stream.sharding.heartbeat-interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${stream.sharding.initial-delay-ms:5000}")
+    private long initialDelayMs;
+
+    @Value("${stream.sharding.lease-seconds:30}")
+    private long leaseSeconds;
+
+    // Rows of nodes that have been gone this many lease periods are deleted
+    @Value("${stream.sharding.node-retention-leases:10}")
+    private long nodeRetentionLeases;
+
+    private final ReentrantLock roundLock = new ReentrantLock();
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService heartbeatScheduler;
+
+    private volatile Set<Long> owned = Set.of();
+    private volatile List<String> liveNodes = List.of();
+    private volatile long ownedUntilNanos;
+
+    @PostConstruct
+    public void init() {
+        // Rounds also run from after-commit listeners, where joining the finished transaction would never commit
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("stream.sharding.owned", this, coordinator -> coordinator.owned.size())
+                .description("Streams this node holds an ingestion lease on")
+                .register(meterRegistry);
+
+        if (enabled && ingestionEnabled) {
+            heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(
+                    blockingIoThreads.threadFactory("StreamHeartbeat-", true));
+            heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, initialDelayMs, heartbeatIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String getNodeId() {
+        return configuredNodeId == null || configuredNodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName()
+                : configuredNodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether this node should ingest the stream. Always true when sharding is disabled.
+     */
+    public boolean owns(Long streamId) {
+        if (!enabled) {
+            return true;
+        }
+        return System.nanoTime() < ownedUntilNanos && owned.contains(streamId);
+    }
+
+    public Set<Long> getOwnedStreamIds() {
+        return System.nanoTime() < ownedUntilNanos ? owned : Set.of();
+    }
+
+    public List<String> getLiveNodes() {
+        return liveNodes;
+    }
+
+    void heartbeat() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel every later heartbeat
+            log.error("Stream heartbeat failed on node {}", getNodeId(), e);
+        }
+    }
+
+    /**
+     * Runs a round right after a stream is created, activated or deactivated on this node, ahead of ingestion's
+     * own listener, so the change is picked up here without waiting for the next heartbeat. Other nodes see it
+     * on their next round.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStreamChanged(StreamChangedEvent event) {
+        if (enabled && ingestionEnabled) {
+            rebalance();
+        }
+    }
+
+    public void rebalance() {
+        // Rounds hold a database transaction, so a lock rather than synchronized keeps virtual threads unpinned
+        roundLock.lock();
+        try {
+            Set<Long> before = owned;
+            long started = System.nanoTime();
+            Set<Long> after;
+            try {
+                after = transactionTemplate.execute(status -> round());
+                ownedUntilNanos = started + leaseSeconds * 1_000_000_000L;
+            } catch (RuntimeException e) {
+                log.warn("Stream assignment round failed on node {}: {}", getNodeId(), e.getMessage());
+                after = before;
+                if (!before.isEmpty() && System.nanoTime() >= ownedUntilNanos) {
+                    log.warn("Leases of node {} lapsed; giving up {} streams", getNodeId(), before.size());
+                    after = Set.of();
+                }
+            }
+            owned = after;
+            publishChanges(before, after);
+        } finally {
+            roundLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled || !ingestionEnabled) {
+            return;
+        }
+        heartbeatScheduler.shutdown();
+        String nodeId = getNodeId();
+        // Waits for a round in flight, which would otherwise renew the leases just released
+        roundLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                streamLeaseRepository.releaseAll(nodeId);
+                streamNodeRepository.deleteById(nodeId);
+            });
+            log.info("Node {} released its stream leases", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not release stream leases of node {}: {}", nodeId, e.getMessage());
+        } finally {
+            owned = Set.of();
+            roundLock.unlock();
+        }
+    }
+
+    private Set<Long> round() {
+        String nodeId = getNodeId();
+
+        if (streamNodeRepository.heartbeat(nodeId, leaseSeconds) == 0) {
+            streamNodeRepository.register(nodeId, leaseSeconds);
+            log.info("Node {} joined stream ingestion", nodeId);
+        }
+        streamNodeRepository.deleteExpiredLongerThan(leaseSeconds * nodeRetentionLeases);
+
+        List<String> nodes = new ArrayList<>(streamNodeRepository.findLiveNodeIds());
+        if (!nodes.contains(nodeId)) {
+            nodes.add(nodeId);
+        }
+        liveNodes = List.copyOf(nodes);
+
+        streamLeaseRepository.createMissing();
+        Set<Long> desired = new HashSet<>();
+        for (Long streamId : streamRepository.findActiveIds()) {
+            if (nodeId.equals(assignee(streamId, nodes))) {
+                desired.add(streamId);
+            }
+        }
+
+        Set<Long> held = new HashSet<>(streamLeaseRepository.findOwnedStreamIds(nodeId));
+        Set<Long> handOver = new HashSet<>(held);
+        handOver.removeAll(desired);
+        if (!handOver.isEmpty()) {
+            streamLeaseRepository.release(handOver, nodeId);
+        }
+        held.retainAll(desired);
+        if (!held.isEmpty()) {
+            streamLeaseRepository.renew(held, nodeId, leaseSeconds);
+        }
+        for (Long streamId : desired) {
+            if (!held.contains(streamId)) {
+                // Fails while the previous owner still holds a valid lease; retried on the next round
+                streamLeaseRepository.claim(streamId, nodeId, leaseSeconds);
+            }
+        }
+
+        return Set.copyOf(streamLeaseRepository.findOwnedStreamIds(nodeId));
+    }
+
+    /**
+     * Highest random weight: the node scoring highest for a stream owns it, so removing a node only moves that
+     * node's streams and adding one only takes over the streams it now wins.
+     */
+    static String assignee(Long streamId, List<String> nodes) {
+        String winner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long score = mix(node.hashCode() * 0x9E3779B97F4A7C15L ^ streamId);
+            if (winner == null || score > best || (score == best && node.compareTo(winner) < 0)) {
+                winner = node;
+                best = score;
+            }
+        }
+        return winner;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void publishChanges(Set<Long> before, Set<Long> after) {
+        Set<Long> acquired = new HashSet<>(after);
+        acquired.removeAll(before);
+        Set<Long> released = new HashSet<>(before);
+        released.removeAll(after);
+        if (acquired.isEmpty() && released.isEmpty()) {
+            return;
+        }
+        log.info("Node {} now owns {} streams (+{} -{})", getNodeId(), after.size(), acquired.size(),
+                released.size());
+        eventPublisher.publishEvent(new StreamOwnershipChangedEvent(Set.copyOf(acquired), Set.copyOf(released)));
+    }
+}
@@ -0,0 +1,33 @@
+package com.pluta.camera.services.ingest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * {@code /actuator/streams}: which streams this node holds leases on and which it is actually ingesting.
+ */
+@Component
+@Endpoint(id = "streams")
+@RequiredArgsConstructor
+public class StreamAssignmentEndpoint {
+
+    private final StreamAssignmentCoordinator streamAssignmentCoordinator;
+    private final StreamIngestionService streamIngestionService;
+
+    @ReadOperation
+    public Map<String, Object> streams() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("nodeId", streamAssignmentCoordinator.getNodeId());
+        body.put("sharding", streamAssignmentCoordinator.isEnabled());
+        body.put("liveNodes", streamAssignmentCoordinator.getLiveNodes());
+        body.put("owned", new TreeSet<>(streamAssignmentCoordinator.getOwnedStreamIds()));
+        body.put("ingesting", new TreeSet<>(streamIngestionService.getRunningStreamIds()));
+        return body;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pluta.camera.services.ingest;
+
+/**
+ * Published by {@link com.pluta.camera.services.StreamService} whenever a stream is created, updated, activated,
+ * deactivated or deleted; ingestion reacts once the change has committed.
+ */
+public record StreamChangedEvent(Long streamId) {
+}
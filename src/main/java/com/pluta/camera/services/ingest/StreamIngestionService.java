@@ -0,0 +1,609 @@
+package com.pluta.camera.services.ingest;
+
+import com.pluta.camera.configs.BlockingIoThreads;
+import com.pluta.camera.dtos.StreamDTO;
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.entities.StreamEntity;
+import com.pluta.camera.services.AsyncVideoProcessor;
+import com.pluta.camera.services.StreamFrameService;
+import com.pluta.camera.services.StreamService;
+import com.pluta.camera.services.pipeline.AdaptiveSampler;
+import com.pluta.camera.services.pipeline.FrameChangeDetector;
+import com.pluta.camera.services.pipeline.MjpegFrameSplitter;
+import com.pluta.camera.services.pipeline.SampledFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one long-lived ffmpeg decoder per active stream and feeds the frames it samples into detection.
+ * <p>
+ * Decoders write MJPEG to their stdout pipe and a single poller thread reads whatever each pipe has available,
+ * so no thread is parked per camera. Every complete image goes through the stream's adaptive sampling schedule
+ * and the sampled ones to a bounded analysis pool. A stream whose previous frame is still being analysed drops
+ * the new one instead of queueing behind it; for a live scene only the latest picture matters.
+ * <p>
+ * A decoder that exits or stops producing data is restarted with exponential backoff. Streams start and stop
+ * when a {@link StreamService} change commits, and a periodic reconcile against the active streams picks up
+ * anything missed, including the streams that are active at startup.
+ * <p>
+ * With several nodes, each one only runs the streams {@link StreamAssignmentCoordinator} has leased to it and
+ * follows its ownership changes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamIngestionService {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_STDERR_CHARS = 4096;
+    // The user:password@ part of URLs that ffmpeg echoes back in its errors
+    private static final Pattern URL_USER_INFO = Pattern.compile("(\\w[\\w+.-]*://)[^/@\\s]+@");
+
+    private final StreamService streamService;
+    private final StreamFrameService streamFrameService;
+    private final AdaptiveSampler adaptiveSampler;
+    private final FrameChangeDetector frameChangeDetector;
+    private final StreamAssignmentCoordinator streamAssignmentCoordinator;
+    private final BlockingIoThreads blockingIoThreads;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stream.ingestion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stream.ingestion.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    // Upper bound on bytes taken from one pipe per poll, so one busy camera cannot hold up the others
+    @Value("${stream.ingestion.max-read-per-poll-bytes:1048576}")
+    private int maxReadPerPoll;
+
+    @Value("${stream.ingestion.max-frame-bytes:8388608}")
+    private int maxFrameBytes;
+
+    @Value("${stream.ingestion.analysis-threads:4}")
+    private int analysisThreads;
+
+    // Sends sampled streams to the remote analysis API, batched across streams, instead of the local detector
+    @Value("${stream.ingestion.remote-analysis:false}")
+    private boolean remoteAnalysis;
+
+    @Value("${stream.ingestion.analysis-queue-capacity:64}")
+    private int analysisQueueCapacity;
+
+    @Value("${stream.ingestion.stall-timeout-seconds:30}")
+    private long stallTimeoutSeconds;
+
+    @Value("${stream.ingestion.reconnect.initial-delay-ms:1000}")
+    private long reconnectInitialDelayMs;
+
+    @Value("${stream.ingestion.reconnect.max-delay-ms:60000}")
+    private long reconnectMaxDelayMs;
+
+    @Value("${stream.ingestion.frame-directory:${java.io.tmpdir}/stream-frames}")
+    private String frameDirectory;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    // Sessions replaced or stopped by other threads; the poller closes them, so only it ever touches a process
+    private final Queue<Session> retired = new ConcurrentLinkedQueue<>();
+    private final byte[] readBuffer = new byte[READ_BUFFER_BYTES];
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    private ScheduledExecutorService poller;
+    private ThreadPoolExecutor analysisExecutor;
+
+    private Counter framesReceived;
+    private Counter framesAnalyzed;
+    private Counter framesDropped;
+    private Counter framesFailed;
+    private Counter reconnects;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("Stream ingestion is disabled");
+            return;
+        }
+        Files.createDirectories(Paths.get(frameDirectory));
+
+        analysisExecutor = new ThreadPoolExecutor(analysisThreads, analysisThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(analysisQueueCapacity), blockingIoThreads.threadFactory("StreamAnalysis-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        poller = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "StreamPoller-"));
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+
+        framesReceived = frameCounter("received");
+        framesAnalyzed = frameCounter("analyzed");
+        framesDropped = frameCounter("dropped");
+        framesFailed = frameCounter("failed");
+        reconnects = Counter.builder("stream.ingestion.reconnects")
+                .description("Decoder restarts after an exit, stall or launch failure")
+                .register(meterRegistry);
+        Gauge.builder("stream.ingestion.sessions", sessions, s -> count(true))
+                .tag("state", "connected")
+                .register(meterRegistry);
+        Gauge.builder("stream.ingestion.sessions", sessions, s -> count(false))
+                .tag("state", "connecting")
+                .register(meterRegistry);
+        Gauge.builder("stream.ingestion.analysis.queue", analysisExecutor, e -> e.getQueue().size())
+                .description("Sampled stream frames waiting for an analysis thread")
+                .register(meterRegistry);
+
+        log.info("Stream ingestion started with {} analysis threads", analysisThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdown();
+        poller.awaitTermination(5, TimeUnit.SECONDS);
+        sessions.values().forEach(Session::close);
+        retired.forEach(Session::close);
+        analysisExecutor.shutdownNow();
+    }
+
+    /**
+     * Brings running decoders in line with the active streams: starts missing ones, restarts those whose source
+     * changed, refreshes table polygons and stops decoders of streams that are no longer active or no longer
+     * owned by this node.
+     */
+    @Scheduled(fixedDelayString = "${stream.ingestion.reconcile-interval-ms:30000}",
+            initialDelayString = "${stream.ingestion.reconcile-initial-delay-ms:10000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> active = streamService.findByActive(true).stream()
+                .map(StreamDTO::getId)
+                .filter(streamAssignmentCoordinator::owns)
+                .collect(Collectors.toSet());
+
+        for (Long streamId : List.copyOf(sessions.keySet())) {
+            if (!active.contains(streamId)) {
+                stop(streamId);
+            }
+        }
+        for (Long streamId : active) {
+            try {
+                refresh(streamId);
+            } catch (RuntimeException e) {
+                log.error("Could not start ingestion of stream {}: {}", streamId, e.getMessage());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStreamChanged(StreamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (streamAssignmentCoordinator.owns(event.streamId())) {
+            refresh(event.streamId());
+        } else {
+            stop(event.streamId());
+        }
+    }
+
+    @EventListener
+    public void onOwnershipChanged(StreamOwnershipChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        event.released().forEach(this::stop);
+        for (Long streamId : event.acquired()) {
+            try {
+                refresh(streamId);
+            } catch (RuntimeException e) {
+                log.error("Could not start ingestion of stream {}: {}", streamId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts ingesting the stream, restarts it if its source changed, or stops it if the stream is gone or
+     * inactive.
+     */
+    public void refresh(Long streamId) {
+        Optional<StreamTarget> target = streamFrameService.loadTarget(streamId);
+        if (target.isEmpty()) {
+            stop(streamId);
+            return;
+        }
+
+        Session current = sessions.get(streamId);
+        if (current != null && current.target.sameSource(target.get())) {
+            current.updateTables(target.get());
+            return;
+        }
+
+        Session previous = sessions.put(streamId, new Session(target.get()));
+        if (previous != null) {
+            retired.add(previous);
+            log.info("Restarting ingestion of stream {}: source changed", streamId);
+        } else {
+            log.info("Starting ingestion of stream {}", streamId);
+        }
+    }
+
+    public void stop(Long streamId) {
+        Session session = sessions.remove(streamId);
+        if (session != null) {
+            retired.add(session);
+            log.info("Stopped ingestion of stream {}", streamId);
+        }
+    }
+
+    public boolean isRunning(Long streamId) {
+        return sessions.containsKey(streamId);
+    }
+
+    public Set<Long> getRunningStreamIds() {
+        return Set.copyOf(sessions.keySet());
+    }
+
+    private void poll() {
+        Session stopped;
+        while ((stopped = retired.poll()) != null) {
+            stopped.close();
+        }
+
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            try {
+                session.poll(now);
+            } catch (IOException | RuntimeException e) {
+                session.fail(e.getMessage(), now);
+            }
+        }
+    }
+
+    private void dispatch(Session session, byte[] image, double offsetSeconds) {
+        if (!session.analysing.compareAndSet(false, true)) {
+            framesDropped.increment();
+            return;
+        }
+        if (remoteAnalysis) {
+            analyzeRemotely(session, offsetSeconds);
+            return;
+        }
+        try {
+            analysisExecutor.execute(() -> analyze(session, image, offsetSeconds));
+        } catch (RejectedExecutionException e) {
+            session.analysing.set(false);
+            framesDropped.increment();
+        }
+    }
+
+    private void analyze(Session session, byte[] image, double offsetSeconds) {
+        Long streamId = session.target.id();
+        Path file = Paths.get(frameDirectory, "stream_" + streamId + "_" + UUID.randomUUID() + ".jpg");
+        try {
+            Files.write(file, image);
+            Tables tables = session.tables;
+            List<Frame> rows = streamFrameService.analyze(tables.target(),
+                    SampledFrame.onDisk(offsetSeconds, file.toString()), tables.tracker());
+            session.schedule.observe(offsetSeconds, rows);
+            framesAnalyzed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            framesFailed.increment();
+            log.warn("Analysis failed for stream {} at {}s: {}", streamId, offsetSeconds, e.getMessage());
+        } finally {
+            session.analysing.set(false);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.debug("Could not delete {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The remote API grabs the picture itself, so here the decoded image only paces sampling. The call does not
+     * hold an analysis thread while batched; only saving the returned row runs on the analysis executor. The
+     * stream stays marked busy until the row is saved.
+     */
+    private void analyzeRemotely(Session session, double offsetSeconds) {
+        Long streamId = session.target.id();
+        CompletableFuture<List<Frame>> rows;
+        try {
+            StreamTarget target = session.tables.target();
+            rows = streamFrameService.analyzeRemotely(target, sourceUrl(target.stream()), offsetSeconds,
+                    analysisExecutor);
+        } catch (RuntimeException e) {
+            session.analysing.set(false);
+            framesFailed.increment();
+            log.warn("Remote analysis failed for stream {} at {}s: {}", streamId, offsetSeconds,
+                    maskCredentials(String.valueOf(e.getMessage()), session.target.stream()));
+            return;
+        }
+        rows.whenComplete((saved, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    framesFailed.increment();
+                    // The server may echo the request, credentialed URL included
+                    log.warn("Remote analysis failed for stream {} at {}s: {}", streamId, offsetSeconds,
+                            maskCredentials(String.valueOf(cause.getMessage()), session.target.stream()));
+                } else {
+                    session.schedule.observe(offsetSeconds, saved);
+                    framesAnalyzed.increment();
+                }
+            } finally {
+                session.analysing.set(false);
+            }
+        });
+    }
+
+    private int count(boolean connected) {
+        return (int) sessions.values().stream().filter(session -> session.connected == connected).count();
+    }
+
+    private Counter frameCounter(String outcome) {
+        return Counter.builder("stream.ingestion.frames")
+                .tag("outcome", outcome)
+                .description("Frames decoded from live streams by what became of them")
+                .register(meterRegistry);
+    }
+
+    private Thread daemon(Runnable runnable, String prefix) {
+        Thread thread = new Thread(runnable, prefix + threadSequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Credentials stored on the stream go into the URL's user info unless the URL already carries some.
+     */
+    static String sourceUrl(StreamEntity stream) {
+        String url = stream.getUrl();
+        if (stream.getUsername() == null || stream.getUsername().isEmpty()) {
+            return url;
+        }
+        try {
+            URI uri = new URI(url);
+            if (uri.getUserInfo() != null) {
+                return url;
+            }
+            String userInfo = stream.getPassword() == null || stream.getPassword().isEmpty()
+                    ? stream.getUsername()
+                    : stream.getUsername() + ":" + stream.getPassword();
+            return new URI(uri.getScheme(), userInfo, uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(),
+                    uri.getFragment()).toASCIIString();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid stream URL for stream " + stream.getId());
+        }
+    }
+
+    /**
+     * Hides the user info of every URL in {@code text}, and the stream's password wherever else it shows up, so
+     * camera credentials never reach the logs.
+     */
+    static String maskCredentials(String text, StreamEntity stream) {
+        String masked = URL_USER_INFO.matcher(text).replaceAll("$1***@");
+        String password = stream.getPassword();
+        return password == null || password.isEmpty() ? masked : masked.replace(password, "***");
+    }
+
+    /**
+     * Table polygons and the change tracker built from them; swapped together when the tables are edited.
+     */
+    private record Tables(StreamTarget target, FrameChangeDetector.Tracker tracker) {
+    }
+
+    /**
+     * One stream's decoder. Everything but {@link #updateTables} and the {@code analysing} flag is confined to
+     * the poller thread.
+     */
+    private final class Session {
+
+        private final StreamTarget target;
+        private final AdaptiveSampler.Schedule schedule;
+        private int step;
+        private final AtomicBoolean analysing = new AtomicBoolean();
+        private volatile Tables tables;
+        private volatile boolean connected;
+
+        private Process process;
+        private MjpegFrameSplitter splitter;
+        private final StringBuilder stderr = new StringBuilder();
+        private double nextOffsetSeconds;
+        private long lastDataAt;
+        private long nextAttemptAt;
+        private int failures;
+
+        private Session(StreamTarget target) {
+            this.target = target;
+            StreamEntity stream = target.stream();
+            int interval = stream.getSamplingIntervalSeconds() != null ? stream.getSamplingIntervalSeconds() : 5;
+            this.schedule = adaptiveSampler.schedule(stream.getCamera().getId(), interval);
+            this.step = schedule.intervalSeconds();
+            this.tables = new Tables(target, frameChangeDetector.track(target.coordinates()));
+        }
+
+        private void updateTables(StreamTarget latest) {
+            if (!latest.coordinates().equals(tables.target().coordinates())) {
+                tables = new Tables(latest, frameChangeDetector.track(latest.coordinates()));
+            }
+        }
+
+        private void poll(long now) throws IOException {
+            if (process == null) {
+                if (now - nextAttemptAt >= 0) {
+                    launch(now);
+                }
+                return;
+            }
+            if (schedule.intervalSeconds() != step) {
+                // The decoder only emits frames on its interval; reconnecting is cheaper than decoding the ones
+                // a longer interval would skip
+                log.debug("Stream {} sampling moves to every {}s", target.id(), schedule.intervalSeconds());
+                close();
+                launch(now);
+                return;
+            }
+
+            drainErrors();
+            InputStream out = process.getInputStream();
+            int budget = maxReadPerPoll;
+            int available;
+            while (budget > 0 && (available = out.available()) > 0) {
+                int read = out.read(readBuffer, 0, Math.min(readBuffer.length, Math.min(available, budget)));
+                if (read < 0) {
+                    break;
+                }
+                splitter.append(readBuffer, 0, read);
+                budget -= read;
+                lastDataAt = now;
+            }
+
+            for (byte[] image : splitter.drain()) {
+                onImage(image);
+            }
+
+            if (!process.isAlive() && out.available() == 0) {
+                fail("decoder exited with code " + process.exitValue(), now);
+            } else if (now - lastDataAt > TimeUnit.SECONDS.toNanos(Math.max(stallTimeoutSeconds, 3L * step))) {
+                fail("no data for " + TimeUnit.NANOSECONDS.toSeconds(now - lastDataAt) + "s", now);
+            }
+        }
+
+        private void onImage(byte[] image) {
+            framesReceived.increment();
+            if (!connected) {
+                connected = true;
+                failures = 0;
+                log.info("Stream {} connected", target.id());
+            }
+
+            // Offsets count from the start of the session, one decode interval per frame
+            double offsetSeconds = nextOffsetSeconds;
+            nextOffsetSeconds += step;
+            if (schedule.shouldSample(offsetSeconds)) {
+                dispatch(this, image, offsetSeconds);
+            }
+        }
+
+        private void launch(long now) {
+            step = schedule.intervalSeconds();
+            List<String> command = new ArrayList<>();
+            command.add("ffmpeg");
+            command.add("-nostdin");
+            command.add("-loglevel");
+            command.add("error");
+            String url = sourceUrl(target.stream());
+            if (url.startsWith("rtsp")) {
+                command.add("-rtsp_transport");
+                command.add("tcp");
+            }
+            command.add("-i");
+            command.add(url);
+            command.add("-vf");
+            command.add("fps=1/" + step + "," + AsyncVideoProcessor.SCALE_PAD_FILTER);
+            command.add("-f");
+            command.add("image2pipe");
+            command.add("-c:v");
+            command.add("mjpeg");
+            command.add("-q:v");
+            command.add("3");
+            command.add("-");
+
+            try {
+                process = new ProcessBuilder(command).start();
+                process.getOutputStream().close();
+                splitter = new MjpegFrameSplitter(maxFrameBytes);
+                lastDataAt = now;
+            } catch (IOException e) {
+                fail("decoder could not be started: " + e.getMessage(), now);
+            }
+        }
+
+        private void fail(String reason, long now) {
+            close();
+            long delayMs = Math.min(reconnectMaxDelayMs, reconnectInitialDelayMs << Math.min(failures, 16));
+            // Jitter so cameras behind one failed switch do not all reconnect in the same poll
+            delayMs = (long) (delayMs * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+            failures++;
+            nextAttemptAt = now + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            reconnects.increment();
+            log.warn("Stream {}: {}; reconnecting in {} ms", target.id(), maskCredentials(reason, target.stream()),
+                    delayMs);
+        }
+
+        private void drainErrors() throws IOException {
+            InputStream err = process.getErrorStream();
+            int available;
+            while ((available = err.available()) > 0) {
+                int read = err.read(readBuffer, 0, Math.min(readBuffer.length, available));
+                if (read < 0) {
+                    break;
+                }
+                stderr.append(new String(readBuffer, 0, read, StandardCharsets.UTF_8));
+            }
+            int newline;
+            while ((newline = stderr.indexOf("\n")) >= 0) {
+                log.warn("Stream {} ffmpeg: {}", target.id(),
+                        maskCredentials(stderr.substring(0, newline).trim(), target.stream()));
+                stderr.delete(0, newline + 1);
+            }
+            if (stderr.length() > MAX_STDERR_CHARS) {
+                stderr.setLength(0);
+            }
+        }
+
+        private void close() {
+            connected = false;
+            if (process != null) {
+                process.destroyForcibly();
+                process = null;
+            }
+            splitter = null;
+            stderr.setLength(0);
+        }
+    }
+}
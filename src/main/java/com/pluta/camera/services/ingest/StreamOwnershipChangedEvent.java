@@ -0,0 +1,10 @@
+package com.pluta.camera.services.ingest;
+
+import java.util.Set;
+
+/**
+ * Published by {@link StreamAssignmentCoordinator} when this node gains or loses stream leases; ingestion starts
+ * the acquired streams and stops the released ones.
+ */
+public record StreamOwnershipChangedEvent(Set<Long> acquired, Set<Long> released) {
+}
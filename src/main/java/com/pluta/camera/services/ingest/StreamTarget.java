@@ -0,0 +1,29 @@
+package com.pluta.camera.services.ingest;
+
+import com.pluta.camera.entities.StreamEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A stream to ingest, detached from the persistence context, with its camera's table polygons as the detector
+ * takes them.
+ */
+public record StreamTarget(StreamEntity stream, Map<Long, List<String>> coordinates) {
+
+    public Long id() {
+        return stream.getId();
+    }
+
+    /**
+     * Whether a running decoder for {@code other} can be kept, i.e. nothing it was started with has changed.
+     */
+    public boolean sameSource(StreamTarget other) {
+        StreamEntity that = other.stream();
+        return Objects.equals(stream.getUrl(), that.getUrl())
+                && Objects.equals(stream.getUsername(), that.getUsername())
+                && Objects.equals(stream.getPassword(), that.getPassword())
+                && Objects.equals(stream.getSamplingIntervalSeconds(), that.getSamplingIntervalSeconds());
+    }
+}
@@ -0,0 +1,145 @@
+package com.pluta.camera.services.live;
+
+import com.pluta.camera.dtos.TableOccupancyDTO;
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.entities.TableEntity;
+import com.pluta.camera.services.rollup.OccupancyRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes per-table occupancy to {@code /topic/occupancy/{tenantId}/{branchId}} as frames are stored. Updates are
+ * coalesced per table: within each {@code live.occupancy.coalesce-window-ms} only the latest observation is kept,
+ * and a table is only sent when its counts differ from what subscribers last saw.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OccupancyFeedService {
+
+    public static final String DESTINATION_PREFIX = "/topic/occupancy/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Map<TableKey, TableOccupancyDTO> pending = new ConcurrentHashMap<>();
+    private final Map<TableKey, TableOccupancyDTO> lastPublished = new ConcurrentHashMap<>();
+
+    /**
+     * Queues the frames' table occupancy for the next flush, once the transaction that stores them commits.
+     */
+    public void offer(List<Frame> frames) {
+        // Read everything now; the entities may be detached by the time the transaction completes
+        Map<TableKey, TableOccupancyDTO> updates = new HashMap<>();
+        for (Frame frame : frames) {
+            TableEntity table = frame.getTable();
+            if (table == null) {
+                continue;
+            }
+            TableKey key = new TableKey(new Scope(frame.getTenant().getId(), frame.getBranch().getId()),
+                    table.getId());
+            updates.merge(key, toUpdate(frame, table), OccupancyFeedService::latest);
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updates.forEach((key, update) -> pending.merge(key, update, OccupancyFeedService::latest));
+                }
+            });
+        } else {
+            updates.forEach((key, update) -> pending.merge(key, update, OccupancyFeedService::latest));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${live.occupancy.coalesce-window-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Scope, List<TableOccupancyDTO>> changes = new HashMap<>();
+        for (TableKey key : pending.keySet()) {
+            TableOccupancyDTO update = pending.remove(key);
+            if (update == null || sameCounts(lastPublished.get(key), update)) {
+                continue;
+            }
+            lastPublished.put(key, update);
+            changes.computeIfAbsent(key.scope(), scope -> new ArrayList<>()).add(update);
+        }
+
+        changes.forEach((scope, tables) -> messagingTemplate.convertAndSend(destination(scope), tables));
+        if (!changes.isEmpty()) {
+            log.debug("Published occupancy changes to {} branches", changes.size());
+        }
+    }
+
+    public static String destination(Scope scope) {
+        return DESTINATION_PREFIX + scope.tenantId() + "/" + scope.branchId();
+    }
+
+    /**
+     * The tenant and branch of an occupancy topic, or null if the destination is not one.
+     */
+    public static Scope parseDestination(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return null;
+        }
+        String[] parts = destination.substring(DESTINATION_PREFIX.length()).split("/");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new Scope(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static TableOccupancyDTO toUpdate(Frame frame, TableEntity table) {
+        int totalSeats = OccupancyRollupService.totalSeats(frame);
+        int occupiedSeats = OccupancyRollupService.occupiedSeats(frame);
+        return TableOccupancyDTO.builder()
+                .tableId(table.getId())
+                .zoneId(table.getZone().getId())
+                .occupiedSeats(occupiedSeats)
+                .totalSeats(totalSeats)
+                .personsDetected(frame.getPersonsDetected())
+                .occupancyRate(totalSeats > 0 ? (double) occupiedSeats / totalSeats * 100 : 0.0)
+                .observedAt(frame.getCreatedAt() != null ? frame.getCreatedAt() : OffsetDateTime.now())
+                .build();
+    }
+
+    private static TableOccupancyDTO latest(TableOccupancyDTO current, TableOccupancyDTO candidate) {
+        return candidate.getObservedAt().isBefore(current.getObservedAt()) ? current : candidate;
+    }
+
+    private static boolean sameCounts(TableOccupancyDTO previous, TableOccupancyDTO update) {
+        return previous != null
+                && Objects.equals(previous.getOccupiedSeats(), update.getOccupiedSeats())
+                && Objects.equals(previous.getTotalSeats(), update.getTotalSeats())
+                && Objects.equals(previous.getPersonsDetected(), update.getPersonsDetected());
+    }
+
+    public record Scope(Long tenantId, Long branchId) {
+    }
+
+    private record TableKey(Scope scope, Long tableId) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.pluta.camera.services.pipeline;
+
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.repositories.FrameRepository;
+import com.pluta.camera.services.rollup.OccupancyRollupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Chooses how often to sample a camera from how fast its occupancy is changing. A schedule starts at the
+ * configured interval; whenever a sample shows a table's occupied seats moving by at least
+ * {@code seat-change-threshold} the interval halves, down to {@code min-interval-seconds}, and after
+ * {@code stable-samples} unchanged samples in a row it doubles, up to {@code max-interval-seconds}.
+ * <p>
+ * Each schedule is seeded by replaying the camera's recent frame history through the same rule, so a busy
+ * camera starts dense and a quiet one starts backed off, and then keeps adapting to the samples it produces.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveSampler {
+
+    // Offsets come from summing decode steps, so compare with a little slack
+    private static final double OFFSET_EPSILON = 1e-6;
+
+    private final FrameRepository frameRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${video.sampling.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.sampling.adaptive.min-interval-seconds:1}")
+    private int minIntervalSeconds;
+
+    @Value("${video.sampling.adaptive.max-interval-seconds:60}")
+    private int maxIntervalSeconds;
+
+    @Value("${video.sampling.adaptive.seat-change-threshold:1}")
+    private int seatChangeThreshold;
+
+    @Value("${video.sampling.adaptive.stable-samples:3}")
+    private int stableSamples;
+
+    @Value("${video.sampling.adaptive.history-minutes:60}")
+    private int historyMinutes;
+
+    @Value("${video.sampling.adaptive.history-rows:500}")
+    private int historyRows;
+
+    private Counter framesSampled;
+    private Counter framesSkipped;
+
+    @PostConstruct
+    public void registerMetrics() {
+        framesSampled = counter("sampled");
+        framesSkipped = counter("skipped");
+    }
+
+    /**
+     * Starts a schedule for one camera. With adaptive sampling disabled the schedule samples every
+     * {@code baseIntervalSeconds}, exactly as a fixed interval would.
+     */
+    public Schedule schedule(Long cameraId, int baseIntervalSeconds) {
+        int base = Math.max(1, baseIntervalSeconds);
+        if (!enabled) {
+            return new Schedule(cameraId, base, base, base);
+        }
+
+        Schedule schedule = new Schedule(cameraId, base, Math.max(1, Math.min(minIntervalSeconds, base)),
+                Math.max(maxIntervalSeconds, base));
+        replayHistory(schedule);
+        log.debug("Camera {} sampling starts every {}s (configured {}s)", cameraId, schedule.intervalSeconds(),
+                base);
+        return schedule;
+    }
+
+    private void replayHistory(Schedule schedule) {
+        List<Object[]> rows = frameRepository.findRecentOccupancyByCamera(schedule.cameraId,
+                OffsetDateTime.now().minusMinutes(historyMinutes), PageRequest.of(0, historyRows));
+
+        // Rows arrive newest first; replay oldest first, one sample per (video or stream, offset)
+        Object[] sample = null;
+        Map<Long, Integer> occupancy = new HashMap<>();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Object[] row = rows.get(i);
+            if (sample != null && !sameSample(sample, row)) {
+                schedule.apply(occupancy);
+                occupancy = new HashMap<>();
+                if (!sameSource(sample, row)) {
+                    // Samples of two different videos or streams are not consecutive in time
+                    schedule.resetReference();
+                }
+            }
+            sample = row;
+            occupancy.put((Long) row[3], OccupancyRollupService.seats(count(row[4]), count(row[5]), count(row[6])));
+        }
+        if (!occupancy.isEmpty()) {
+            schedule.apply(occupancy);
+        }
+    }
+
+    private static int count(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static boolean sameSource(Object[] a, Object[] b) {
+        return Objects.equals(a[0], b[0]) && Objects.equals(a[1], b[1]);
+    }
+
+    private static boolean sameSample(Object[] a, Object[] b) {
+        return sameSource(a, b) && Objects.equals(a[2], b[2]);
+    }
+
+    private Counter counter(String outcome) {
+        return Counter.builder("video.sampling.frames")
+                .tag("outcome", outcome)
+                .description("Decoded frames sent to or skipped before analysis by the adaptive sampler")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sampling state for one camera over one run. The extractor decodes one frame per {@link #intervalSeconds()},
+     * restarting its decoder when that changes, and asks {@link #shouldSample} for every frame; analysis workers
+     * report results through {@link #observe}, possibly out of order, and only the newest sample moves the
+     * interval.
+     */
+    public final class Schedule {
+
+        private final Long cameraId;
+        private final int minSeconds;
+        private final int maxSeconds;
+
+        private int intervalSeconds;
+        private int stableCount;
+        private double lastSampledOffset = Double.NaN;
+        private double lastObservedOffset = Double.NEGATIVE_INFINITY;
+        private Map<Long, Integer> reference;
+
+        private Schedule(Long cameraId, int intervalSeconds, int minSeconds, int maxSeconds) {
+            this.cameraId = cameraId;
+            this.intervalSeconds = intervalSeconds;
+            this.minSeconds = minSeconds;
+            this.maxSeconds = maxSeconds;
+        }
+
+        public boolean isAdaptive() {
+            return minSeconds < maxSeconds;
+        }
+
+        public synchronized int intervalSeconds() {
+            return intervalSeconds;
+        }
+
+        public synchronized boolean shouldSample(double offsetSeconds) {
+            boolean due = Double.isNaN(lastSampledOffset)
+                    || offsetSeconds - lastSampledOffset >= intervalSeconds - OFFSET_EPSILON;
+            if (due) {
+                lastSampledOffset = offsetSeconds;
+            }
+            (due ? framesSampled : framesSkipped).increment();
+            return due;
+        }
+
+        /**
+         * Records a sample taken outside {@link #shouldSample}, such as one persisted by an earlier attempt.
+         */
+        public synchronized void markSampled(double offsetSeconds) {
+            lastSampledOffset = offsetSeconds;
+        }
+
+        public void observe(double offsetSeconds, List<Frame> rows) {
+            Map<Long, Integer> occupancy = new HashMap<>();
+            for (Frame row : rows) {
+                if (row.getTable() != null) {
+                    occupancy.put(row.getTable().getId(), OccupancyRollupService.occupiedSeats(row));
+                }
+            }
+            synchronized (this) {
+                if (offsetSeconds <= lastObservedOffset) {
+                    return;
+                }
+                lastObservedOffset = offsetSeconds;
+                apply(occupancy);
+            }
+        }
+
+        private synchronized void apply(Map<Long, Integer> occupancy) {
+            if (occupancy.isEmpty()) {
+                return;
+            }
+            if (reference != null && isAdaptive()) {
+                int previous = intervalSeconds;
+                if (changed(reference, occupancy)) {
+                    stableCount = 0;
+                    intervalSeconds = Math.max(minSeconds, intervalSeconds / 2);
+                } else if (++stableCount >= stableSamples) {
+                    stableCount = 0;
+                    intervalSeconds = Math.min(maxSeconds, intervalSeconds * 2);
+                }
+                if (intervalSeconds != previous) {
+                    log.debug("Camera {} sampling interval {}s -> {}s", cameraId, previous, intervalSeconds);
+                }
+            }
+            reference = occupancy;
+        }
+
+        private synchronized void resetReference() {
+            reference = null;
+            stableCount = 0;
+        }
+
+        private boolean changed(Map<Long, Integer> previous, Map<Long, Integer> current) {
+            for (Map.Entry<Long, Integer> entry : current.entrySet()) {
+                Integer before = previous.get(entry.getKey());
+                if (before != null && Math.abs(entry.getValue() - before) >= seatChangeThreshold) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.pluta.camera.services.pipeline;
+
+import com.pluta.camera.dtos.FrameAnalysisResultDTO;
+import com.pluta.camera.services.detector.RawFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cheap pre-filter in front of the detector. Each table polygon's bounding box is reduced to a small grid of
+ * average luma values; when a table's grid still matches the one its last detection was made on, that detection
+ * is reused instead of running the detector again. A frame where no table changed skips the detector entirely.
+ * <p>
+ * A table is re-detected after {@code max-consecutive-skips} reuses even if it looks unchanged, so a scene that
+ * drifts slowly cannot stay on a stale result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FrameChangeDetector {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${video.pipeline.change-detection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.pipeline.change-detection.grid-size:16}")
+    private int gridSize;
+
+    // Luma difference (0-255) for a grid cell to count as changed
+    @Value("${video.pipeline.change-detection.pixel-threshold:12}")
+    private int pixelThreshold;
+
+    // Share of a table's cells that must change for the table to be re-detected
+    @Value("${video.pipeline.change-detection.changed-cells-ratio:0.05}")
+    private double changedCellsRatio;
+
+    @Value("${video.pipeline.change-detection.max-consecutive-skips:15}")
+    private int maxConsecutiveSkips;
+
+    private Counter framesAnalyzed;
+    private Counter framesSkipped;
+    private Counter tablesAnalyzed;
+    private Counter tablesSkipped;
+
+    @PostConstruct
+    public void registerMetrics() {
+        framesAnalyzed = counter("video.pipeline.change_detection.frames", "analyzed");
+        framesSkipped = counter("video.pipeline.change_detection.frames", "skipped");
+        tablesAnalyzed = counter("video.pipeline.change_detection.tables", "analyzed");
+        tablesSkipped = counter("video.pipeline.change_detection.tables", "skipped");
+    }
+
+    /**
+     * Starts tracking one camera's tables for the length of a pipeline run.
+     *
+     * @param coordinatesByTable table polygons as flat x,y lists, as passed to the detector
+     */
+    public Tracker track(Map<Long, List<String>> coordinatesByTable) {
+        Map<Long, int[]> boxes = new LinkedHashMap<>();
+        coordinatesByTable.forEach((tableId, coordinates) -> boxes.put(tableId, boundingBox(coordinates)));
+        return new Tracker(boxes);
+    }
+
+    /**
+     * What to do with one frame: the tables to send to the detector, and the earlier results to reuse for the
+     * rest. Pass it back to {@link Tracker#record} with the detector's results.
+     */
+    public record Decision(double offsetSeconds, Set<Long> detect, List<FrameAnalysisResultDTO> reused,
+                           Map<Long, int[]> signatures) {
+    }
+
+    /**
+     * Per-run state. Analysis consumers call it concurrently and may finish frames out of order, so a reference
+     * is only replaced by a detection made on a later frame.
+     */
+    public final class Tracker {
+
+        private final Map<Long, int[]> boxes;
+        private final Map<Long, Reference> references = new HashMap<>();
+
+        private Tracker(Map<Long, int[]> boxes) {
+            this.boxes = boxes;
+        }
+
+        public Decision decide(SampledFrame frame) throws IOException {
+            if (!enabled || boxes.isEmpty()) {
+                return new Decision(frame.offsetSeconds(), boxes.keySet(), List.of(), Map.of());
+            }
+
+            Map<Long, int[]> signatures = signatures(frame);
+            Set<Long> detect = new HashSet<>();
+            List<FrameAnalysisResultDTO> reused = new ArrayList<>();
+
+            synchronized (references) {
+                for (Long tableId : boxes.keySet()) {
+                    Reference reference = references.get(tableId);
+                    int[] signature = signatures.get(tableId);
+                    if (reference == null || signature == null || reference.skips >= maxConsecutiveSkips
+                            || changed(reference.signature, signature)) {
+                        detect.add(tableId);
+                    } else {
+                        reference.skips++;
+                        reused.add(reference.result);
+                    }
+                }
+            }
+
+            tablesAnalyzed.increment(detect.size());
+            tablesSkipped.increment(reused.size());
+            (detect.isEmpty() ? framesSkipped : framesAnalyzed).increment();
+            return new Decision(frame.offsetSeconds(), detect, reused, signatures);
+        }
+
+        public void record(Decision decision, List<FrameAnalysisResultDTO> results) {
+            if (!enabled || decision.signatures().isEmpty()) {
+                return;
+            }
+            synchronized (references) {
+                for (FrameAnalysisResultDTO result : results) {
+                    if (result.getTableId() == null) {
+                        continue;
+                    }
+                    Long tableId = result.getTableId().longValue();
+                    int[] signature = decision.signatures().get(tableId);
+                    Reference current = references.get(tableId);
+                    if (signature != null && (current == null || current.offsetSeconds <= decision.offsetSeconds())) {
+                        references.put(tableId, new Reference(signature, result, decision.offsetSeconds()));
+                    }
+                }
+            }
+        }
+
+        private Map<Long, int[]> signatures(SampledFrame frame) throws IOException {
+            Luma luma = frame.isInMemory() ? Luma.of(frame.rawFrame()) : Luma.of(new File(frame.imagePath()));
+            Map<Long, int[]> signatures = new HashMap<>();
+            if (luma == null) {
+                return signatures;
+            }
+            boxes.forEach((tableId, box) -> {
+                int[] signature = signature(luma, box);
+                if (signature != null) {
+                    signatures.put(tableId, signature);
+                }
+            });
+            return signatures;
+        }
+    }
+
+    private boolean changed(int[] previous, int[] current) {
+        int changedCells = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (Math.abs(previous[i] - current[i]) > pixelThreshold) {
+                changedCells++;
+            }
+        }
+        return changedCells > changedCellsRatio * current.length;
+    }
+
+    /**
+     * Average luma of a {@code gridSize x gridSize} grid over the box, or null if the box is off-frame.
+     */
+    private int[] signature(Luma luma, int[] box) {
+        int minX = Math.max(0, box[0]);
+        int minY = Math.max(0, box[1]);
+        int maxX = Math.min(luma.width() - 1, box[2]);
+        int maxY = Math.min(luma.height() - 1, box[3]);
+        if (minX > maxX || minY > maxY) {
+            return null;
+        }
+
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        int cells = gridSize * gridSize;
+        long[] sums = new long[cells];
+        int[] counts = new int[cells];
+        // Sampling every other pixel is plenty for an average and halves the work on large boxes
+        int step = width * height > 4 * cells ? 2 : 1;
+        for (int y = minY; y <= maxY; y += step) {
+            int row = (y - minY) * gridSize / height;
+            for (int x = minX; x <= maxX; x += step) {
+                int cell = row * gridSize + (x - minX) * gridSize / width;
+                sums[cell] += luma.at(x, y);
+                counts[cell]++;
+            }
+        }
+
+        int[] signature = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            signature[i] = counts[i] == 0 ? 0 : (int) (sums[i] / counts[i]);
+        }
+        return signature;
+    }
+
+    private static int[] boundingBox(List<String> coordinates) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i + 1 < coordinates.size(); i += 2) {
+            int x = Integer.parseInt(coordinates.get(i));
+            int y = Integer.parseInt(coordinates.get(i + 1));
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        return new int[]{minX, minY, maxX, maxY};
+    }
+
+    private Counter counter(String name, String outcome) {
+        return Counter.builder(name)
+                .tag("outcome", outcome)
+                .description("Work sent to or skipped by the detector after change detection")
+                .register(meterRegistry);
+    }
+
+    private static final class Reference {
+        private final int[] signature;
+        private final FrameAnalysisResultDTO result;
+        private final double offsetSeconds;
+        private int skips;
+
+        private Reference(int[] signature, FrameAnalysisResultDTO result, double offsetSeconds) {
+            this.signature = signature;
+            this.result = result;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+
+    /**
+     * Luma of a frame's pixels, read on demand from BGR bytes or a decoded image's ARGB values; only the pixels
+     * inside table boxes are ever converted.
+     */
+    private record Luma(int width, int height, byte[] bgr, int[] argb) {
+
+        static Luma of(RawFrame frame) {
+            return new Luma(frame.width(), frame.height(), frame.bgr(), null);
+        }
+
+        static Luma of(File image) throws IOException {
+            BufferedImage decoded = ImageIO.read(image);
+            if (decoded == null) {
+                return null;
+            }
+            int width = decoded.getWidth();
+            int height = decoded.getHeight();
+            return new Luma(width, height, null, decoded.getRGB(0, 0, width, height, null, 0, width));
+        }
+
+        int at(int x, int y) {
+            int index = y * width + x;
+            if (bgr != null) {
+                int p = index * RawFrame.CHANNELS;
+                return luma(bgr[p + 2] & 0xFF, bgr[p + 1] & 0xFF, bgr[p] & 0xFF);
+            }
+            int pixel = argb[index];
+            return luma((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+        }
+
+        private static int luma(int r, int g, int b) {
+            return (77 * r + 150 * g + 29 * b) >> 8;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.pluta.camera.services.pipeline;
+
+import java.io.IOException;
+
+/**
+ * Receives frames from an extractor as soon as they are decoded.
+ * Blocks when downstream stages are saturated, which is what keeps the pipeline's memory flat.
+ */
+@FunctionalInterface
+public interface FrameSink {
+
+    void accept(SampledFrame frame) throws IOException, InterruptedException;
+}
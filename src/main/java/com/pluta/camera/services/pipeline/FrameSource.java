@@ -0,0 +1,12 @@
+package com.pluta.camera.services.pipeline;
+
+import java.io.IOException;
+
+/**
+ * Producer stage of the video pipeline: decodes a video and pushes each sampled frame into the sink.
+ */
+@FunctionalInterface
+public interface FrameSource {
+
+    void emit(FrameSink sink) throws IOException, InterruptedException;
+}
@@ -0,0 +1,149 @@
+package com.pluta.camera.services.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits an ffmpeg {@code -f image2pipe -c:v mjpeg} stream into individual JPEG images.
+ * Walks the JPEG segment structure instead of searching for the EOI bytes, so marker-like
+ * bytes inside tables or entropy-coded data cannot cut an image short.
+ */
+public class MjpegFrameReader {
+
+    private static final int SOI = 0xD8;
+    private static final int EOI = 0xD9;
+    private static final int SOS = 0xDA;
+    private static final int TEM = 0x01;
+
+    private final InputStream in;
+
+    public MjpegFrameReader(InputStream in) {
+        this.in = new BufferedInputStream(in, 64 * 1024);
+    }
+
+    private MjpegFrameReader(ByteArrayInputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads straight from an in-memory buffer without read-ahead, so after each image the buffer's
+     * {@code available()} tells exactly how far the image reached.
+     */
+    static MjpegFrameReader unbuffered(ByteArrayInputStream in) {
+        return new MjpegFrameReader(in);
+    }
+
+    /**
+     * @return the next complete JPEG, or {@code null} once the stream is exhausted
+     */
+    public byte[] next() throws IOException {
+        if (!skipToStartOfImage()) {
+            return null;
+        }
+
+        ByteArrayOutputStream image = new ByteArrayOutputStream(256 * 1024);
+        image.write(0xFF);
+        image.write(SOI);
+
+        int marker = readMarker(image);
+        while (true) {
+            if (marker == EOI) {
+                return image.toByteArray();
+            }
+            if (marker == TEM || isRestart(marker)) {
+                marker = readMarker(image);
+                continue;
+            }
+
+            copySegment(image);
+            marker = marker == SOS ? copyEntropyData(image) : readMarker(image);
+        }
+    }
+
+    private boolean skipToStartOfImage() throws IOException {
+        int previous = -1;
+        int current;
+        while ((current = in.read()) != -1) {
+            if (previous == 0xFF && current == SOI) {
+                return true;
+            }
+            previous = current;
+        }
+        return false;
+    }
+
+    private int readMarker(ByteArrayOutputStream image) throws IOException {
+        int b = readByte();
+        if (b != 0xFF) {
+            throw new IOException("Corrupt MJPEG stream: expected marker, got 0x" + Integer.toHexString(b));
+        }
+        // 0xFF may be repeated as fill bytes before the marker code
+        do {
+            b = readByte();
+        } while (b == 0xFF);
+
+        image.write(0xFF);
+        image.write(b);
+        return b;
+    }
+
+    private void copySegment(ByteArrayOutputStream image) throws IOException {
+        int high = readByte();
+        int low = readByte();
+        image.write(high);
+        image.write(low);
+
+        int remaining = ((high << 8) | low) - 2;
+        byte[] buffer = new byte[Math.max(remaining, 0)];
+        int read = 0;
+        while (read < remaining) {
+            int n = in.read(buffer, read, remaining - read);
+            if (n == -1) {
+                throw new EOFException("Truncated JPEG segment");
+            }
+            read += n;
+        }
+        image.write(buffer, 0, remaining);
+    }
+
+    /**
+     * Copies scan data up to the next real marker and returns that marker's code.
+     */
+    private int copyEntropyData(ByteArrayOutputStream image) throws IOException {
+        while (true) {
+            int b = readByte();
+            if (b != 0xFF) {
+                image.write(b);
+                continue;
+            }
+
+            int next = readByte();
+            while (next == 0xFF) {
+                next = readByte();
+            }
+            image.write(0xFF);
+            image.write(next);
+
+            // 0xFF00 is a stuffed data byte and RSTn markers live inside the scan
+            if (next != 0x00 && !isRestart(next)) {
+                return next;
+            }
+        }
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Truncated JPEG image");
+        }
+        return b;
+    }
+
+    private static boolean isRestart(int marker) {
+        return marker >= 0xD0 && marker <= 0xD7;
+    }
+}
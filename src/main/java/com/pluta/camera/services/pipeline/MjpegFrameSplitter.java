@@ -0,0 +1,89 @@
+package com.pluta.camera.services.pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link MjpegFrameReader}: bytes are appended as they become available and complete
+ * JPEGs are taken out, so one thread can serve many ffmpeg pipes without blocking on any of them.
+ * <p>
+ * A parse is only attempted once an EOI marker has arrived, and the segment walk of {@link MjpegFrameReader}
+ * decides whether that marker really ends the image.
+ */
+public class MjpegFrameSplitter {
+
+    private final int maxImageBytes;
+
+    private byte[] buffer = new byte[256 * 1024];
+    private int length;
+    private int scanFrom;
+
+    /**
+     * @param maxImageBytes largest image accepted; more buffered bytes without a complete image mean the stream
+     *                      is corrupt
+     */
+    public MjpegFrameSplitter(int maxImageBytes) {
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    public void append(byte[] bytes, int offset, int count) throws IOException {
+        if (length + count > maxImageBytes) {
+            throw new IOException("No complete JPEG within " + maxImageBytes + " bytes");
+        }
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxImageBytes, Math.max(buffer.length * 2, length + count)));
+        }
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+    }
+
+    /**
+     * @return the images completed by the bytes appended so far, oldest first
+     */
+    public List<byte[]> drain() throws IOException {
+        List<byte[]> images = new ArrayList<>();
+        int eoi;
+        while ((eoi = indexOfEoi(scanFrom)) >= 0) {
+            ByteArrayInputStream in = new ByteArrayInputStream(buffer, 0, length);
+            byte[] image;
+            try {
+                image = MjpegFrameReader.unbuffered(in).next();
+            } catch (EOFException e) {
+                // The marker was inside the image; keep waiting for the real end
+                scanFrom = eoi + 2;
+                continue;
+            }
+            if (image == null) {
+                length = 0;
+                break;
+            }
+            discard(length - in.available());
+            images.add(image);
+        }
+        scanFrom = Math.max(scanFrom, length - 1);
+        return images;
+    }
+
+    public int buffered() {
+        return length;
+    }
+
+    private int indexOfEoi(int from) {
+        for (int i = Math.max(0, from); i + 1 < length; i++) {
+            if (buffer[i] == (byte) 0xFF && buffer[i + 1] == (byte) 0xD9) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void discard(int count) {
+        System.arraycopy(buffer, count, buffer, 0, length - count);
+        length -= count;
+        scanFrom = 0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pluta.camera.services.pipeline;
+
+/**
+ * Per-stage counts of one video pipeline run.
+ */
+public record PipelineResult(int framesExtracted, int framesAnalyzed, int rowsPersisted) {
+}
@@ -0,0 +1,23 @@
+package com.pluta.camera.services.pipeline;
+
+import com.pluta.camera.services.detector.RawFrame;
+
+/**
+ * One frame sampled from a video, handed from the extractor to the analysis stage.
+ * Either {@code imagePath} points at a JPEG on disk, or {@code rawFrame} carries the decoded pixels
+ * in memory; in the latter case {@code imagePath} is only used to name annotated output.
+ */
+public record SampledFrame(double offsetSeconds, String imagePath, RawFrame rawFrame) {
+
+    public static SampledFrame onDisk(double offsetSeconds, String imagePath) {
+        return new SampledFrame(offsetSeconds, imagePath, null);
+    }
+
+    public static SampledFrame inMemory(double offsetSeconds, String frameName, RawFrame rawFrame) {
+        return new SampledFrame(offsetSeconds, frameName, rawFrame);
+    }
+
+    public boolean isInMemory() {
+        return rawFrame != null;
+    }
+}
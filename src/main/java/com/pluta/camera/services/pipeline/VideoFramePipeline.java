@@ -0,0 +1,331 @@
+package com.pluta.camera.services.pipeline;
+
+import com.pluta.camera.dtos.FrameAnalysisResultDTO;
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.entities.Video;
+import com.pluta.camera.services.VideoFrameService;
+import com.pluta.camera.services.rollup.OccupancyRollupService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming extract → analyze → persist pipeline for one uploaded video.
+ * <p>
+ * The extractor pushes frames into a bounded queue as ffmpeg decodes them, {@code analysis-consumers}
+ * workers pull frames and run the detector, and a single persistence stage writes {@link Frame}
+ * rows in batches. Bounded queues give backpressure all the way back to ffmpeg's stdout pipe,
+ * so memory stays flat regardless of video length.
+ * <p>
+ * With {@code in-memory-frames} the extractor hands over raw BGR pixels instead of JPEG files, and
+ * images are written only when {@code annotate-frames} asks for annotated copies.
+ * <p>
+ * Before each detector call the {@link FrameChangeDetector} drops tables whose image has not changed since
+ * their last detection; their previous results are carried forward into the frame's rows. Each analysed
+ * frame is also reported to the run's {@link AdaptiveSampler.Schedule}, which decides how densely the
+ * extractor samples from there on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VideoFramePipeline {
+
+    private static final SampledFrame END_OF_FRAMES = SampledFrame.onDisk(-1, null);
+    private static final List<Frame> END_OF_ROWS = Collections.unmodifiableList(new ArrayList<>());
+    private static final long PUT_RETRY_MS = 200;
+
+    private final VideoFrameService videoFrameService;
+    private final OccupancyRollupService occupancyRollupService;
+    private final FrameChangeDetector frameChangeDetector;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${video.pipeline.analysis-consumers:2}")
+    private int analysisConsumers;
+
+    @Value("${video.pipeline.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${video.pipeline.persist-batch-size:50}")
+    private int persistBatchSize;
+
+    @Value("${video.pipeline.in-memory-frames:true}")
+    private boolean inMemoryFrames;
+
+    @Value("${video.pipeline.annotate-frames:false}")
+    private boolean annotateFrames;
+
+    private final AtomicInteger extractedQueueDepth = new AtomicInteger();
+    private final AtomicInteger analyzedQueueDepth = new AtomicInteger();
+    private final AtomicInteger threadSequence = new AtomicInteger();
+    private final ExecutorService stageExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "VideoPipeline-" + threadSequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Timer extractTimer;
+    private Timer analyzeTimer;
+    private Timer persistTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("video.pipeline.queue.depth", extractedQueueDepth, AtomicInteger::get)
+                .tag("queue", "extracted")
+                .description("Frames decoded and waiting for the detector")
+                .register(meterRegistry);
+        Gauge.builder("video.pipeline.queue.depth", analyzedQueueDepth, AtomicInteger::get)
+                .tag("queue", "analyzed")
+                .description("Analysed frames waiting to be persisted")
+                .register(meterRegistry);
+
+        extractTimer = stageTimer("extract");
+        analyzeTimer = stageTimer("analyze");
+        persistTimer = stageTimer("persist");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stageExecutor.shutdownNow();
+    }
+
+    /**
+     * Whether extractors should emit raw frames. Needs the warm detector workers, since the one-shot
+     * script can only read images from disk.
+     */
+    public boolean usesInMemoryFrames() {
+        return inMemoryFrames && videoFrameService.supportsInMemoryFrames();
+    }
+
+    /**
+     * Runs the pipeline to completion on the calling thread (which acts as the producer).
+     * The first failure in any stage aborts the run and is rethrown here.
+     */
+    public PipelineResult run(Video video, FrameSource source, Double confidenceThreshold,
+                              Double zoneConfidenceThreshold, AdaptiveSampler.Schedule schedule)
+            throws IOException, InterruptedException {
+        BlockingQueue<SampledFrame> extractedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Frame>> analyzedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        AtomicInteger extracted = new AtomicInteger();
+        AtomicInteger analyzed = new AtomicInteger();
+        AtomicInteger persisted = new AtomicInteger();
+
+        // Table polygons are fixed for the run, so they are loaded once rather than per frame
+        Map<Long, List<String>> coordinates = videoFrameService.tableCoordinates(video);
+        FrameChangeDetector.Tracker tracker = frameChangeDetector.track(coordinates);
+
+        long start = System.nanoTime();
+
+        List<Future<?>> analysisWorkers = new ArrayList<>();
+        for (int i = 0; i < analysisConsumers; i++) {
+            analysisWorkers.add(stageExecutor.submit(() -> analyzeLoop(video, coordinates, tracker, schedule,
+                    extractedQueue, analyzedQueue, confidenceThreshold, zoneConfidenceThreshold, failure, analyzed)));
+        }
+        Future<?> persister = stageExecutor.submit(() -> persistLoop(analyzedQueue, failure, persisted));
+
+        long lastFrameAt;
+        try {
+            source.emit(new FrameSink() {
+                private long previous = System.nanoTime();
+
+                @Override
+                public void accept(SampledFrame frame) throws IOException, InterruptedException {
+                    if (failure.get() != null) {
+                        throw new IOException("Video pipeline aborted", failure.get());
+                    }
+                    long now = System.nanoTime();
+                    extractTimer.record(now - previous, TimeUnit.NANOSECONDS);
+                    previous = now;
+
+                    if (!put(extractedQueue, frame, failure)) {
+                        throw new IOException("Video pipeline aborted", failure.get());
+                    }
+                    extractedQueueDepth.incrementAndGet();
+                    extracted.incrementAndGet();
+                }
+            });
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            lastFrameAt = System.nanoTime();
+            // Consumers keep draining after a stage failure; only a shutdown stops them, and then put gives up
+            for (int i = 0; i < analysisConsumers && put(extractedQueue, END_OF_FRAMES, failure); i++) {
+                extractedQueueDepth.incrementAndGet();
+            }
+        }
+
+        await(analysisWorkers);
+        long analyzedAt = System.nanoTime();
+        if (put(analyzedQueue, END_OF_ROWS, failure)) {
+            analyzedQueueDepth.incrementAndGet();
+        }
+        await(List.of(persister));
+        long persistedAt = System.nanoTime();
+
+        log.info("Video {} pipeline: extracted {} frames ({} fps), analysed {} ({} fps), persisted {} rows ({} rows/s)",
+                video.getId(),
+                extracted.get(), rate(extracted.get(), start, lastFrameAt),
+                analyzed.get(), rate(analyzed.get(), start, analyzedAt),
+                persisted.get(), rate(persisted.get(), start, persistedAt));
+
+        Exception error = failure.get();
+        if (error instanceof InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw interruptedException;
+        }
+        if (error instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (error != null) {
+            throw new IOException(error.getMessage(), error);
+        }
+
+        return new PipelineResult(extracted.get(), analyzed.get(), persisted.get());
+    }
+
+    private void analyzeLoop(Video video, Map<Long, List<String>> coordinates, FrameChangeDetector.Tracker tracker,
+                             AdaptiveSampler.Schedule schedule, BlockingQueue<SampledFrame> extractedQueue, BlockingQueue<List<Frame>> analyzedQueue,
+                             Double confidenceThreshold, Double zoneConfidenceThreshold,
+                             AtomicReference<Exception> failure, AtomicInteger analyzed) {
+        try {
+            while (true) {
+                SampledFrame frame = extractedQueue.take();
+                extractedQueueDepth.decrementAndGet();
+                if (frame == END_OF_FRAMES) {
+                    return;
+                }
+                if (failure.get() != null) {
+                    continue;
+                }
+
+                try {
+                    long started = System.nanoTime();
+                    List<FrameAnalysisResultDTO> results = videoFrameService.detectChanged(frame, annotateFrames,
+                            confidenceThreshold, zoneConfidenceThreshold, video.getCamera().getId(), coordinates,
+                            tracker);
+                    List<Frame> rows = videoFrameService.toFrames(results, confidenceThreshold, video, null,
+                            frame.offsetSeconds());
+                    schedule.observe(frame.offsetSeconds(), rows);
+                    analyzeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+                    if (!put(analyzedQueue, rows, failure)) {
+                        return;
+                    }
+                    analyzedQueueDepth.incrementAndGet();
+                    analyzed.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    log.error("Analysis failed for frame at {}s of video {}: {}",
+                            frame.offsetSeconds(), video.getId(), e.getMessage());
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void persistLoop(BlockingQueue<List<Frame>> analyzedQueue, AtomicReference<Exception> failure,
+                             AtomicInteger persisted) {
+        List<Frame> batch = new ArrayList<>(persistBatchSize);
+        try {
+            while (true) {
+                List<Frame> rows = analyzedQueue.take();
+                analyzedQueueDepth.decrementAndGet();
+                if (rows == END_OF_ROWS) {
+                    break;
+                }
+
+                batch.addAll(rows);
+                if (batch.size() >= persistBatchSize) {
+                    flush(batch, failure, persisted);
+                }
+            }
+            flush(batch, failure, persisted);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<Frame> batch, AtomicReference<Exception> failure, AtomicInteger persisted) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            occupancyRollupService.saveFrames(batch);
+            persistTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            persisted.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to persist {} frame rows: {}", batch.size(), e.getMessage());
+            failure.compareAndSet(null, e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Blocks until the queue takes the item, unless the pipeline is being shut down: {@link #shutdown()}
+     * interrupts the stages, which then stop draining, so a plain {@code put} could wait forever.
+     *
+     * @return false when the item was dropped because the pipeline is shutting down
+     */
+    private <T> boolean put(BlockingQueue<T> queue, T item, AtomicReference<Exception> failure)
+            throws InterruptedException {
+        while (!queue.offer(item, PUT_RETRY_MS, TimeUnit.MILLISECONDS)) {
+            if (stageExecutor.isShutdown()) {
+                failure.compareAndSet(null, new InterruptedException("Video pipeline shut down"));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Video pipeline stage crashed: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("video.pipeline.stage")
+                .tag("stage", stage)
+                .description("Time spent per item in each video pipeline stage")
+                .register(meterRegistry);
+    }
+
+    private static String rate(int count, long startNanos, long endNanos) {
+        double seconds = Math.max((endNanos - startNanos) / 1_000_000_000.0, 0.001);
+        return String.format("%.2f", count / seconds);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pluta.camera.services.query;
+
+import com.pluta.camera.dtos.QueryResultDTO;
+import com.pluta.camera.exceptions.WidgetQueryTimeoutException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a validated widget plan within its limits. Kept apart from the result cache so that a connection is only
+ * held while the query runs, not while callers wait on a shared load.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WidgetQueryExecutor {
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    private final WidgetQueryGovernor widgetQueryGovernor;
+
+    @Transactional(readOnly = true)
+    public QueryResultDTO execute(WidgetQueryPlan plan, Map<String, Object> parameters, Long tenantId,
+                                  Long branchId) {
+        Session session = entityManager.unwrap(Session.class);
+
+        // Same HQL string as the validated plan, so Hibernate reuses its cached interpretation
+        Query<Tuple> query = session.createQuery(plan.hql(), Tuple.class);
+
+        if (plan.usesTenant()) {
+            query.setParameter(WidgetQueryPlan.TENANT_PARAMETER, tenantId);
+        }
+        if (plan.usesBranch()) {
+            query.setParameter(WidgetQueryPlan.BRANCH_PARAMETER, branchId);
+        }
+        if (parameters != null) {
+            parameters.forEach(query::setParameter);
+        }
+
+        WidgetQueryLimits limits = plan.limits();
+        query.setTimeout(limits.timeoutSeconds());
+        query.setFetchSize(limits.fetchSize());
+        // One extra row tells a result that fits exactly apart from a truncated one
+        query.setMaxResults(limits.maxRows() + 1);
+
+        long started = System.nanoTime();
+        List<Tuple> tuples;
+        try {
+            tuples = query.getResultList();
+            widgetQueryGovernor.recordExecution(plan.queryName(), "success", System.nanoTime() - started);
+        } catch (QueryTimeoutException e) {
+            widgetQueryGovernor.recordExecution(plan.queryName(), "timeout", System.nanoTime() - started);
+            throw new WidgetQueryTimeoutException(String.format("Query %s did not complete within %ds",
+                    plan.queryName(), limits.timeoutSeconds()), e);
+        } catch (RuntimeException e) {
+            widgetQueryGovernor.recordExecution(plan.queryName(), "failure", System.nanoTime() - started);
+            throw e;
+        }
+
+        boolean truncated = tuples.size() > limits.maxRows();
+        if (truncated) {
+            log.warn("Query {} returned more than {} rows; result truncated", plan.queryName(), limits.maxRows());
+            tuples = tuples.subList(0, limits.maxRows());
+        }
+
+        List<String> columns = plan.columns();
+        if (columns.isEmpty() && !tuples.isEmpty()) {
+            columns = tuples.get(0).getElements().stream()
+                    .map(TupleElement::getAlias)
+                    .toList();
+        }
+
+        List<Object[]> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(tuple.toArray());
+        }
+
+        return QueryResultDTO.builder()
+                .queryName(plan.queryName())
+                .version(plan.version())
+                .columns(columns)
+                .rows(rows)
+                .truncated(truncated)
+                .build();
+    }
+}
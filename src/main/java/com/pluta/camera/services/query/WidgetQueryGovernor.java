@@ -0,0 +1,174 @@
+package com.pluta.camera.services.query;
+
+import com.pluta.camera.entities.Widget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits for dynamic widget HQL: per-widget timeout, row cap and fetch size with configured defaults, an
+ * optimizer cost ceiling checked when a plan is compiled, and a latency histogram per query.
+ */
+@Component
+@Slf4j
+public class WidgetQueryGovernor {
+
+    static final String TIMER_NAME = "widget.query.execution";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate explainTransaction;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${widget.governance.timeout-seconds:15}")
+    private int defaultTimeoutSeconds;
+
+    @Value("${widget.governance.max-rows:10000}")
+    private int defaultMaxRows;
+
+    @Value("${widget.governance.fetch-size:500}")
+    private int defaultFetchSize;
+
+    @Value("${widget.governance.max-cost:1000000}")
+    private long maxCost;
+
+    public WidgetQueryGovernor(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        // EXPLAIN PLAN writes to PLAN_TABLE, which a read-only transaction would refuse
+        this.explainTransaction = new TransactionTemplate(transactionManager);
+        this.explainTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public WidgetQueryLimits limits(Widget widget) {
+        return new WidgetQueryLimits(
+                positiveOr(widget.getQueryTimeoutSeconds(), defaultTimeoutSeconds),
+                positiveOr(widget.getMaxRows(), defaultMaxRows),
+                positiveOr(widget.getFetchSize(), defaultFetchSize));
+    }
+
+    /**
+     * Rejects the query when the optimizer's estimated cost exceeds {@code widget.governance.max-cost}. The SQL
+     * Hibernate generates is captured without executing it and explained with all parameters left as unbound
+     * binds. Only Oracle plans are checked; elsewhere, or with a max cost of 0, this is a no-op.
+     */
+    public void checkCost(String queryName, String hql, Set<String> parameterNames) {
+        if (maxCost <= 0 || !(sessionFactory.getJdbcServices().getDialect() instanceof OracleDialect)) {
+            return;
+        }
+
+        String sql = generatedSql(hql, parameterNames);
+        Long cost = explainTransaction.execute(status -> explainCost(sql));
+        log.debug("Widget query {} has estimated cost {}", queryName, cost);
+
+        if (cost != null && cost > maxCost) {
+            throw new IllegalArgumentException(String.format(
+                    "Query %s rejected: estimated cost %d exceeds the limit of %d", queryName, cost, maxCost));
+        }
+    }
+
+    public void recordExecution(String queryName, String outcome, long elapsedNanos) {
+        Timer.builder(TIMER_NAME)
+                .description("Widget query execution time, excluding cache hits")
+                .tag("query", queryName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String generatedSql(String hql, Set<String> parameterNames) {
+        SqlCapture capture = new SqlCapture();
+        try (Session session = sessionFactory.withOptions().statementInspector(capture).openSession()) {
+            Query<Tuple> query = session.createQuery(hql, Tuple.class);
+            parameterNames.forEach(name -> query.setParameter(name, null));
+            query.getResultList();
+        } catch (RuntimeException e) {
+            if (capture.sql == null) {
+                throw e;
+            }
+        }
+        if (capture.sql == null) {
+            throw new IllegalStateException("No SQL was generated for the widget query");
+        }
+        return capture.sql;
+    }
+
+    private Long explainCost(String sql) {
+        String statementId = "widget-" + UUID.randomUUID().toString().substring(0, 8);
+        jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + namedBinds(sql));
+        try {
+            return jdbcTemplate.queryForObject(
+                    "SELECT cost FROM plan_table WHERE statement_id = ? AND id = 0", Long.class, statementId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM plan_table WHERE statement_id = ?", statementId);
+        }
+    }
+
+    /**
+     * EXPLAIN PLAN takes bind names rather than JDBC placeholders, so each {@code ?} outside a string literal
+     * becomes {@code :bN}.
+     */
+    static String namedBinds(String sql) {
+        StringBuilder out = new StringBuilder(sql.length() + 16);
+        boolean inLiteral = false;
+        int bind = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                out.append(":b").append(++bind);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static int positiveOr(Integer value, int fallback) {
+        return value != null && value > 0 ? value : fallback;
+    }
+
+    /**
+     * Records the SQL and aborts before the statement is prepared, so the query never runs.
+     */
+    private static final class SqlCapture implements StatementInspector {
+
+        private String sql;
+
+        @Override
+        public String inspect(String sql) {
+            if (this.sql == null) {
+                this.sql = sql;
+            }
+            throw new SqlCaptured();
+        }
+    }
+
+    private static final class SqlCaptured extends RuntimeException {
+        SqlCaptured() {
+            super("SQL captured", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.pluta.camera.services.query;
+
+/**
+ * Execution limits applied to a widget query: JDBC timeout in seconds, the most rows returned, and the JDBC fetch
+ * size.
+ */
+public record WidgetQueryLimits(int timeoutSeconds, int maxRows, int fetchSize) {
+}
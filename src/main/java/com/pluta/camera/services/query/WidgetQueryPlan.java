@@ -0,0 +1,28 @@
+package com.pluta.camera.services.query;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A widget's HQL after validation: parsed once, with the parameter names and result columns it declares.
+ * {@code version} is the widget row version the plan was compiled from; {@code cacheTtlSeconds} is the widget's
+ * result TTL override, or null for the default; {@code limits} are the execution limits with defaults applied.
+ */
+public record WidgetQueryPlan(String queryName, long version, String hql, Set<String> parameterNames,
+                              List<String> columns, Integer cacheTtlSeconds, WidgetQueryLimits limits) {
+
+    static final String TENANT_PARAMETER = "tenantId";
+    static final String BRANCH_PARAMETER = "branchId";
+
+    public static boolean isContextParameter(String name) {
+        return TENANT_PARAMETER.equals(name) || BRANCH_PARAMETER.equals(name);
+    }
+
+    public boolean usesTenant() {
+        return parameterNames.contains(TENANT_PARAMETER);
+    }
+
+    public boolean usesBranch() {
+        return parameterNames.contains(BRANCH_PARAMETER);
+    }
+}
@@ -0,0 +1,139 @@
+package com.pluta.camera.services.query;
+
+import com.pluta.camera.entities.Widget;
+import com.pluta.camera.repositories.WidgetRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.hibernate.query.spi.SqmQuery;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelection;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Resolved widget definitions and their validated query plans, by query name. A widget is read and its HQL
+ * parsed once, not on every execution; {@link com.pluta.camera.services.WidgetService} evicts entries, and the
+ * results cached from them, when a widget changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WidgetQueryRegistry {
+
+    private final WidgetRepository widgetRepository;
+    private final WidgetResultCache widgetResultCache;
+    private final WidgetQueryGovernor widgetQueryGovernor;
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    private final Map<String, WidgetQueryPlan> plans = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction, so a plan compiled from a definition read before the eviction is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Transactional(readOnly = true)
+    public WidgetQueryPlan plan(String queryName) {
+        WidgetQueryPlan plan = plans.get(queryName);
+        if (plan != null) {
+            return plan;
+        }
+
+        long evictionsBefore = evictions.get();
+        Widget widget = widgetRepository.findByQueryName(queryName)
+                .orElseThrow(() -> new IllegalArgumentException("Query not found with queryName: " + queryName));
+        plan = compile(widget);
+
+        if (evictions.get() == evictionsBefore) {
+            plans.putIfAbsent(queryName, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Evicts the given query names now and again once the surrounding transaction commits, so that a reader
+     * that loaded the old definition before the commit cannot leave it cached.
+     */
+    public void evictAfterCommit(Collection<String> queryNames) {
+        List<String> names = queryNames.stream().filter(Objects::nonNull).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(names);
+                }
+            });
+        }
+        evict(names);
+    }
+
+    private void evict(Collection<String> queryNames) {
+        evictions.incrementAndGet();
+        queryNames.forEach(plans::remove);
+        widgetResultCache.invalidate(queryNames);
+        log.debug("Evicted widget query plans: {}", queryNames);
+    }
+
+    private WidgetQueryPlan compile(Widget widget) {
+        Query<Tuple> query;
+        try {
+            query = entityManager.unwrap(Session.class).createQuery(widget.getHqlQuery(), Tuple.class);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid query for queryName: " + widget.getQueryName(), e);
+        }
+
+        Set<String> parameterNames = query.getParameters().stream()
+                .map(Parameter::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+
+        widgetQueryGovernor.checkCost(widget.getQueryName(), widget.getHqlQuery(), parameterNames);
+
+        WidgetQueryPlan plan = new WidgetQueryPlan(widget.getQueryName(),
+                widget.getVersion() != null ? widget.getVersion() : 0L, widget.getHqlQuery(), parameterNames,
+                columns(query), widget.getCacheTtlSeconds(), widgetQueryGovernor.limits(widget));
+        log.debug("Compiled widget query {} v{} with parameters {}", plan.queryName(), plan.version(),
+                parameterNames);
+        return plan;
+    }
+
+    /**
+     * Result column names from the select clause, or an empty list when the statement shape does not expose
+     * them up front (they are then taken from the first result row).
+     */
+    private static List<String> columns(Query<Tuple> query) {
+        if (!(query instanceof SqmQuery sqmQuery)
+                || !(sqmQuery.getSqmStatement() instanceof SqmSelectStatement<?> select)) {
+            return List.of();
+        }
+        try {
+            List<SqmSelection<?>> selections = select.getQuerySpec().getSelectClause().getSelections();
+            List<String> columns = new ArrayList<>(selections.size());
+            for (int i = 0; i < selections.size(); i++) {
+                String alias = selections.get(i).getAlias();
+                columns.add(alias != null ? alias : "col" + i);
+            }
+            return List.copyOf(columns);
+        } catch (RuntimeException e) {
+            return List.of();
+        }
+    }
+}
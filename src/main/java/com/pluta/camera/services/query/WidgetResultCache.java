@@ -0,0 +1,140 @@
+package com.pluta.camera.services.query;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pluta.camera.dtos.QueryResultDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Widget results per {@link WidgetResultKey}, expiring after the widget's TTL and bounded by the estimated size of
+ * the cached rows. Concurrent requests for the same key share one execution: the first caller runs the query on
+ * its own thread and the others wait for its result. Hit, miss and eviction counts are published as the
+ * {@code widget-data} cache metrics.
+ */
+@Component
+@Slf4j
+public class WidgetResultCache {
+
+    static final String CACHE_NAME = "widget-data";
+
+    private final AsyncCache<WidgetResultKey, CachedResult> cache;
+    private final long defaultTtlSeconds;
+
+    public WidgetResultCache(MeterRegistry meterRegistry,
+                             @Value("${widget.cache.default-ttl-seconds:60}") long defaultTtlSeconds,
+                             @Value("${widget.cache.max-weight-bytes:67108864}") long maxWeightBytes) {
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((WidgetResultKey key, CachedResult value) -> value.weight())
+                .expireAfter(new Expiry<WidgetResultKey, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(WidgetResultKey key, CachedResult value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(WidgetResultKey key, CachedResult value, long currentTime,
+                                                  long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(WidgetResultKey key, CachedResult value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached result for the key, or runs {@code loader} once for all concurrent callers. A TTL of
+     * zero or less bypasses the cache. Failed loads are not cached.
+     */
+    public QueryResultDTO get(WidgetResultKey key, Integer ttlSeconds, Supplier<QueryResultDTO> loader) {
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl <= 0) {
+            return loader.get();
+        }
+
+        CompletableFuture<CachedResult> created = new CompletableFuture<>();
+        CompletableFuture<CachedResult> future = cache.get(key, (k, executor) -> created);
+        if (future == created) {
+            try {
+                QueryResultDTO result = loader.get();
+                created.complete(new CachedResult(result, TimeUnit.SECONDS.toNanos(ttl), weigh(result)));
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return future.join().result();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every cached result of the given queries, for all tenants and parameters.
+     */
+    public void invalidate(Collection<String> queryNames) {
+        Set<String> names = Set.copyOf(queryNames);
+        cache.asMap().keySet().removeIf(key -> names.contains(key.queryName()));
+    }
+
+    /**
+     * Rough heap footprint of a result in bytes: array and boxing overhead per cell plus character data.
+     */
+    private static int weigh(QueryResultDTO result) {
+        long bytes = 64;
+        if (result.getRows() != null) {
+            for (Object[] row : result.getRows()) {
+                bytes += 16 + 8L * row.length;
+                for (Object value : row) {
+                    bytes += weigh(value);
+                }
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + 2L * text.length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Enum<?>) {
+            return 16;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        return 64;
+    }
+
+    private record CachedResult(QueryResultDTO result, long ttlNanos, int weight) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.pluta.camera.services.query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Identifies one cached widget result: the caller's tenant and branch, the query and the widget version it ran
+ * against, and the request parameters in normalized form.
+ */
+public record WidgetResultKey(Long tenantId, Long branchId, String queryName, long version,
+                              Map<String, Object> parameters) {
+
+    public static WidgetResultKey of(Long tenantId, Long branchId, WidgetQueryPlan plan,
+                                     Map<String, Object> parameters) {
+        Map<String, Object> normalized = new TreeMap<>();
+        if (parameters != null) {
+            parameters.forEach((name, value) -> normalized.put(name, normalize(value)));
+        }
+        return new WidgetResultKey(tenantId, branchId, plan.queryName(), plan.version(),
+                Collections.unmodifiableMap(normalized));
+    }
+
+    /**
+     * JSON bodies bind 5 as Integer or Long and 5.0 as Double depending on the client, so numbers are compared
+     * by value; collections are compared element-wise.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Number number) {
+            if (number instanceof Double d && !Double.isFinite(d) || number instanceof Float f && !Float.isFinite(f)) {
+                return number;
+            }
+            return new BigDecimal(number.toString()).stripTrailingZeros();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(WidgetResultKey::normalize).toList();
+        }
+        return value;
+    }
+}
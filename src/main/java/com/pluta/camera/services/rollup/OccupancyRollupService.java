@@ -0,0 +1,150 @@
+package com.pluta.camera.services.rollup;
+
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.entities.TableEntity;
+import com.pluta.camera.entities.Video;
+import com.pluta.camera.enums.RollupGranularity;
+import com.pluta.camera.repositories.FrameRepository;
+import com.pluta.camera.repositories.OccupancyRollupRepository;
+import com.pluta.camera.services.live.OccupancyFeedService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the occupancy rollups in step with the frame table: frames are saved and their counts added to
+ * the minute, hour and day buckets of their table in the same transaction. Committed frames are also handed
+ * to the live occupancy feed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OccupancyRollupService {
+
+    // Seat weights shared by the rollups and adaptive sampling
+    private static final int SEATS_PER_BENCH = 3;
+    private static final int SEATS_PER_COUCH = 3;
+
+    // Keys are applied in a fixed order so that two writers touching the same buckets cannot deadlock
+    private static final Comparator<BucketKey> KEY_ORDER = Comparator
+            .comparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart)
+            .thenComparing(BucketKey::tableId);
+
+    private final FrameRepository frameRepository;
+    private final OccupancyRollupRepository occupancyRollupRepository;
+    private final OccupancyFeedService occupancyFeedService;
+
+    @Transactional
+    public List<Frame> saveFrames(List<Frame> frames) {
+        List<Frame> saved = frameRepository.saveAll(frames);
+        addToRollups(saved, LocalDateTime.now());
+        occupancyFeedService.offer(saved);
+        return saved;
+    }
+
+    private void addToRollups(List<Frame> frames, LocalDateTime now) {
+        Map<BucketKey, BucketDelta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Frame frame : frames) {
+            TableEntity table = frame.getTable();
+            if (table == null) {
+                continue;
+            }
+            LocalDateTime capturedAt = capturedAt(frame, now);
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                BucketKey key = new BucketKey(granularity, granularity.bucketStart(capturedAt),
+                        frame.getTenant().getId(),
+                        frame.getBranch().getId(), table.getZone().getId(), table.getId());
+                deltas.computeIfAbsent(key, k -> new BucketDelta()).add(frame);
+            }
+        }
+
+        OffsetDateTime updatedAt = OffsetDateTime.now();
+        deltas.forEach((key, delta) -> {
+            occupancyRollupRepository.createBucketIfAbsent(key.granularity().name(), key.bucketStart(),
+                    key.tenantId(), key.branchId(), key.zoneId(), key.tableId());
+            occupancyRollupRepository.addToBucket(key.granularity(), key.bucketStart(), key.tenantId(),
+                    key.branchId(), key.zoneId(), key.tableId(), delta.frames, delta.personsDetected,
+                    delta.personsSitting, delta.occupiedSeats, delta.totalSeats, delta.occupiedChairs,
+                    delta.unoccupiedChairs, delta.occupiedBenches, delta.unoccupiedBenches, delta.occupiedCouches,
+                    delta.unoccupiedCouches, delta.maxPersonsDetected, delta.maxOccupancyRate, updatedAt);
+        });
+        log.debug("Added {} frames to {} occupancy buckets", frames.size(), deltas.size());
+    }
+
+    /**
+     * When the frame was captured: the recording start plus its offset for video frames. Live frames are
+     * analysed seconds after capture, so the time they are saved is close enough.
+     */
+    static LocalDateTime capturedAt(Frame frame, LocalDateTime now) {
+        Video video = frame.getVideo();
+        if (video == null || video.getRecordedAt() == null || frame.getFrameOffsetSeconds() == null) {
+            return now;
+        }
+        return video.getRecordedAt().plusNanos(Math.round(frame.getFrameOffsetSeconds() * 1_000_000_000L));
+    }
+
+    /**
+     * Seat capacity of a frame, weighting benches and couches as three seats like the dashboard does.
+     */
+    public static int totalSeats(Frame frame) {
+        return seats(frame.getChairsDetected(), frame.getBenchesDetected(), frame.getCouchesDetected());
+    }
+
+    public static int occupiedSeats(Frame frame) {
+        return seats(frame.getOccupiedChairs(), frame.getOccupiedBenches(), frame.getOccupiedCouches());
+    }
+
+    public static int seats(int chairs, int benches, int couches) {
+        return chairs + benches * SEATS_PER_BENCH + couches * SEATS_PER_COUCH;
+    }
+
+    private record BucketKey(RollupGranularity granularity, LocalDateTime bucketStart, Long tenantId,
+                             Long branchId, Long zoneId, Long tableId) {
+    }
+
+    private static final class BucketDelta {
+        private long frames;
+        private long personsDetected;
+        private long personsSitting;
+        private long occupiedSeats;
+        private long totalSeats;
+        private long occupiedChairs;
+        private long unoccupiedChairs;
+        private long occupiedBenches;
+        private long unoccupiedBenches;
+        private long occupiedCouches;
+        private long unoccupiedCouches;
+        private int maxPersonsDetected;
+        private double maxOccupancyRate;
+
+        private void add(Frame frame) {
+            int seats = OccupancyRollupService.totalSeats(frame);
+            int occupied = OccupancyRollupService.occupiedSeats(frame);
+
+            frames++;
+            personsDetected += frame.getPersonsDetected();
+            personsSitting += frame.getPersonsSitting();
+            occupiedSeats += occupied;
+            totalSeats += seats;
+            occupiedChairs += frame.getOccupiedChairs();
+            unoccupiedChairs += frame.getUnoccupiedChairs();
+            occupiedBenches += frame.getOccupiedBenches();
+            unoccupiedBenches += frame.getUnoccupiedBenches();
+            occupiedCouches += frame.getOccupiedCouches();
+            unoccupiedCouches += frame.getUnoccupiedCouches();
+            maxPersonsDetected = Math.max(maxPersonsDetected, frame.getPersonsDetected());
+            if (seats > 0) {
+                maxOccupancyRate = Math.max(maxOccupancyRate, (double) occupied / seats * 100);
+            }
+        }
+    }
+}
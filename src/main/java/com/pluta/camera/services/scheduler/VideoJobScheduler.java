@@ -0,0 +1,210 @@
+package com.pluta.camera.services.scheduler;
+
+import com.pluta.camera.exceptions.SchedulerSaturatedException;
+import com.pluta.camera.services.detector.DetectorWorkerPool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded scheduler for video processing jobs.
+ * <p>
+ * Jobs are queued per tenant and workers rotate round-robin over the tenants, so one tenant's burst of
+ * uploads cannot starve the others. Concurrency defaults to the detector pool size since every job ends
+ * up waiting on a detector worker anyway. Admission limits live in {@link VideoJobService}, which only
+ * claims as many jobs from the shared queue as {@link #availableSlots()} allows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VideoJobScheduler {
+
+    private static final int DEFAULT_CONCURRENCY = 2;
+
+    private final DetectorWorkerPool detectorWorkerPool;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${video.scheduler.concurrency:0}")
+    private int configuredConcurrency;
+
+    @Value("${video.scheduler.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition jobAvailable = lock.newCondition();
+    private final TenantQueues queue = new TenantQueues();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private int pending;
+    private int running;
+    private volatile boolean accepting;
+
+    @PostConstruct
+    public void start() {
+        int concurrency = getConcurrency();
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::workLoop, "VideoJob-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        accepting = true;
+        workers.forEach(Thread::start);
+
+        Gauge.builder("video.scheduler.jobs", this, s -> s.count(false))
+                .tag("state", "pending")
+                .register(meterRegistry);
+        Gauge.builder("video.scheduler.jobs", this, s -> s.count(true))
+                .tag("state", "running")
+                .register(meterRegistry);
+
+        log.info("Video job scheduler started with {} workers", concurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    public int getConcurrency() {
+        if (configuredConcurrency > 0) {
+            return configuredConcurrency;
+        }
+        int detectorWorkers = detectorWorkerPool.getSize();
+        return detectorWorkers > 0 ? detectorWorkers : DEFAULT_CONCURRENCY;
+    }
+
+    /**
+     * Number of jobs that could start right now without queueing behind others.
+     */
+    public int availableSlots() {
+        lock.lock();
+        try {
+            return Math.max(0, getConcurrency() - running - pending);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a job behind other tenants' turns.
+     *
+     * @throws SchedulerSaturatedException if the scheduler is shutting down
+     */
+    public void submit(Long tenantId, Runnable job) {
+        Objects.requireNonNull(tenantId, "tenantId");
+        lock.lock();
+        try {
+            if (!accepting) {
+                throw new SchedulerSaturatedException("Video processing is shutting down", retryAfterSeconds);
+            }
+            queue.add(tenantId, job);
+            pending++;
+            jobAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Runnable job;
+            try {
+                job = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                log.error("Video job failed: {}", e.getMessage(), e);
+            } finally {
+                lock.lock();
+                try {
+                    running--;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Job job = queue.poll();
+                if (job != null) {
+                    pending--;
+                    running++;
+                    return job.task();
+                }
+                jobAvailable.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int count(boolean runningJobs) {
+        lock.lock();
+        try {
+            return runningJobs ? running : pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Job(Long tenantId, Runnable task) {
+    }
+
+    /**
+     * Per-tenant FIFO queues, served round-robin. Guarded by the scheduler lock.
+     */
+    private static class TenantQueues {
+
+        private final Map<Long, Deque<Job>> byTenant = new HashMap<>();
+        private final Deque<Long> rotation = new ArrayDeque<>();
+
+        void add(Long tenantId, Runnable task) {
+            Deque<Job> tenantJobs = byTenant.computeIfAbsent(tenantId, id -> {
+                rotation.addLast(id);
+                return new ArrayDeque<>();
+            });
+            tenantJobs.addLast(new Job(tenantId, task));
+        }
+
+        Job poll() {
+            Long tenantId = rotation.pollFirst();
+            if (tenantId == null) {
+                return null;
+            }
+
+            Deque<Job> tenantJobs = byTenant.get(tenantId);
+            Job job = tenantJobs.pollFirst();
+            if (tenantJobs.isEmpty()) {
+                byTenant.remove(tenantId);
+            } else {
+                rotation.addLast(tenantId);
+            }
+            return job;
+        }
+    }
+}
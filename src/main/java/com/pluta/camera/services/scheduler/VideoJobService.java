@@ -0,0 +1,314 @@
+package com.pluta.camera.services.scheduler;
+
+import com.pluta.camera.configs.BlockingIoThreads;
+import com.pluta.camera.entities.Video;
+import com.pluta.camera.entities.VideoJob;
+import com.pluta.camera.enums.JobStatus;
+import com.pluta.camera.enums.ProcessingStatus;
+import com.pluta.camera.exceptions.SchedulerSaturatedException;
+import com.pluta.camera.repositories.FrameRepository;
+import com.pluta.camera.repositories.VideoJobRepository;
+import com.pluta.camera.repositories.VideoRepository;
+import com.pluta.camera.services.AsyncVideoProcessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable video job queue shared by all application nodes.
+ * <p>
+ * Uploads insert a QUEUED row; every node polls for work whenever its {@link VideoJobScheduler} has free
+ * slots, claims a job with {@code SELECT ... FOR UPDATE SKIP LOCKED} and holds a lease on it that is
+ * renewed by a heartbeat. If a node dies, its leases expire and another node picks the job up, skipping
+ * frames that were already persisted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoJobService {
+
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private final VideoJobRepository videoJobRepository;
+    private final VideoRepository videoRepository;
+    private final FrameRepository frameRepository;
+    private final AsyncVideoProcessor asyncVideoProcessor;
+    private final VideoJobScheduler videoJobScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingIoThreads blockingIoThreads;
+
+    @Value("${video.jobs.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${video.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${video.jobs.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${video.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${video.jobs.max-queued:50}")
+    private int maxQueued;
+
+    @Value("${video.jobs.max-queued-per-tenant:10}")
+    private int maxQueuedPerTenant;
+
+    @Value("${video.scheduler.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private final Set<Long> ownedJobs = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService heartbeatScheduler;
+
+    /**
+     * Lease renewal gets its own thread: on the shared scheduling pool a slow poll or another component's task
+     * could delay it past the lease and hand a running job to a second node.
+     */
+    @PostConstruct
+    public void init() {
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(
+                blockingIoThreads.threadFactory("VideoJobHeartbeat-", true));
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdown();
+    }
+
+    public String getNodeId() {
+        return configuredNodeId == null || configuredNodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName()
+                : configuredNodeId;
+    }
+
+    /**
+     * Rejects work when the shared queue, or this tenant's share of it, is full.
+     */
+    public void ensureCapacity(Long tenantId) {
+        if (videoJobRepository.countByStatus(JobStatus.QUEUED) >= maxQueued) {
+            throw new SchedulerSaturatedException("Video processing queue is full, try again later",
+                    retryAfterSeconds);
+        }
+        if (videoJobRepository.countByTenantIdAndStatus(tenantId, JobStatus.QUEUED) >= maxQueuedPerTenant) {
+            throw new SchedulerSaturatedException("Too many videos waiting to be processed for this tenant",
+                    retryAfterSeconds);
+        }
+    }
+
+    public VideoJob enqueue(Video video) {
+        ensureCapacity(video.getTenant().getId());
+
+        return videoJobRepository.save(newJob(video));
+    }
+
+    /**
+     * Queues a job for every video that was left waiting or half-processed without one, such as videos caught
+     * mid-processing when the job queue was deployed. Nodes may race on this at startup; the unique video
+     * constraint keeps one job per video.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOrphanedVideos() {
+        List<Video> orphans = videoRepository.findWithoutJob(List.of(ProcessingStatus.UPLOADED,
+                ProcessingStatus.PROCESSING));
+        int recovered = 0;
+        for (Video video : orphans) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> videoJobRepository.save(newJob(video)));
+                recovered++;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Video {} was queued by another node", video.getId());
+            }
+        }
+        if (recovered > 0) {
+            log.info("Queued {} videos that were left in UPLOADED or PROCESSING without a job", recovered);
+        }
+    }
+
+    /**
+     * Claims as many jobs as the local scheduler can start and hands them over to it.
+     */
+    @Scheduled(fixedDelayString = "${video.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        int slots = videoJobScheduler.availableSlots();
+        if (slots == 0) {
+            return;
+        }
+
+        List<Object[]> candidates = videoJobRepository.findClaimCandidates(slots * 4);
+        for (Long jobId : roundRobinByTenant(candidates)) {
+            if (slots == 0) {
+                break;
+            }
+            ClaimedJob claimed = transactionTemplate.execute(status -> claim(jobId));
+            if (claimed == null) {
+                continue;
+            }
+
+            try {
+                videoJobScheduler.submit(claimed.tenantId(), () -> run(claimed));
+                slots--;
+            } catch (SchedulerSaturatedException e) {
+                ownedJobs.remove(claimed.jobId());
+                transactionTemplate.executeWithoutResult(status -> videoJobRepository.release(claimed.jobId(),
+                        getNodeId()));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Extends the lease of every job this node is running.
+     */
+    void heartbeat() {
+        if (ownedJobs.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(ownedJobs);
+        try {
+            Integer renewed = transactionTemplate.execute(status -> videoJobRepository.renewLeases(ids, getNodeId(),
+                    leaseSeconds));
+            if (renewed != null && renewed < ids.size()) {
+                log.warn("Renewed {} of {} video job leases; the rest were taken over by another node",
+                        renewed, ids.size());
+            }
+        } catch (RuntimeException e) {
+            // Keep the heartbeat scheduled; the next round retries before the leases run out
+            log.error("Video job heartbeat failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private ClaimedJob claim(Long jobId) {
+        VideoJob job = videoJobRepository.lockIfClaimable(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+
+        if (job.getStatus() == JobStatus.RUNNING) {
+            log.warn("Video job {} lease held by {} expired, taking it over", job.getId(), job.getOwner());
+        }
+
+        if (job.getAttempts() >= maxAttempts) {
+            String error = "Gave up after " + job.getAttempts() + " attempts";
+            job.setStatus(JobStatus.FAILED);
+            job.setOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setLastError(error);
+
+            Video video = job.getVideo();
+            video.setStatus(ProcessingStatus.FAILED);
+            video.setErrorMessage(error);
+            video.setProcessingCompletedAt(LocalDateTime.now());
+            return null;
+        }
+
+        // The lease starts on the database clock; the loaded entity is left untouched so it does not overwrite it
+        videoJobRepository.start(job.getId(), getNodeId(), leaseSeconds);
+        ownedJobs.add(job.getId());
+
+        Video video = job.getVideo();
+        return new ClaimedJob(job.getId(), video.getId(), video.getFilePath(), job.getTenant().getId(),
+                job.getAttempts() + 1);
+    }
+
+    private void run(ClaimedJob job) {
+        ProcessingStatus result = ProcessingStatus.FAILED;
+        String error = null;
+        try {
+            Set<Double> processedOffsets = new HashSet<>(frameRepository.findProcessedFrameOffsets(job.videoId()));
+            result = asyncVideoProcessor.processVideo(job.videoId(), job.filePath(), processedOffsets);
+            if (result == ProcessingStatus.FAILED) {
+                error = videoRepository.findById(job.videoId()).map(Video::getErrorMessage).orElse(null);
+            }
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            ownedJobs.remove(job.jobId());
+            finish(job, result, error);
+        }
+    }
+
+    private void finish(ClaimedJob job, ProcessingStatus result, String error) {
+        String owner = getNodeId();
+        int updated = switch (result) {
+            case COMPLETED -> transactionTemplate.execute(status ->
+                    videoJobRepository.finish(job.jobId(), owner, JobStatus.COMPLETED, null));
+            // Interrupted on shutdown: hand the job back right away instead of waiting for the lease to expire
+            case PROCESSING, UPLOADED -> transactionTemplate.execute(status ->
+                    videoJobRepository.release(job.jobId(), owner));
+            // Failed attempts go back to the queue until max-attempts; the retry resumes from the persisted frames
+            case FAILED -> job.attempt() < maxAttempts
+                    ? transactionTemplate.execute(status ->
+                            videoJobRepository.requeue(job.jobId(), owner, truncate(error)))
+                    : transactionTemplate.execute(status ->
+                            videoJobRepository.finish(job.jobId(), owner, JobStatus.FAILED, truncate(error)));
+        };
+        if (updated == 0) {
+            log.warn("Video job {} was no longer owned by {} when it finished as {}", job.jobId(), owner, result);
+        }
+    }
+
+    /**
+     * Keeps the repository's FIFO order per tenant but interleaves tenants, so one tenant's backlog does
+     * not take every free slot.
+     */
+    private List<Long> roundRobinByTenant(List<Object[]> candidates) {
+        Map<Long, Deque<Long>> byTenant = new LinkedHashMap<>();
+        for (Object[] candidate : candidates) {
+            byTenant.computeIfAbsent(((Number) candidate[1]).longValue(), tenantId -> new ArrayDeque<>())
+                    .add(((Number) candidate[0]).longValue());
+        }
+
+        List<Long> ordered = new ArrayList<>(candidates.size());
+        while (!byTenant.isEmpty()) {
+            byTenant.values().removeIf(jobs -> {
+                ordered.add(jobs.poll());
+                return jobs.isEmpty();
+            });
+        }
+        return ordered;
+    }
+
+    private static VideoJob newJob(Video video) {
+        return VideoJob.builder()
+                .video(video)
+                .tenant(video.getTenant())
+                .status(JobStatus.QUEUED)
+                .build();
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record ClaimedJob(Long jobId, Long videoId, String filePath, Long tenantId, int attempt) {
+    }
+}
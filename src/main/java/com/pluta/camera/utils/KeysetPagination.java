@@ -0,0 +1,107 @@
+package com.pluta.camera.utils;
+
+import com.pluta.camera.dtos.CursorPageDTO;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Seek pagination over (timestamp, id), newest first. Each page is one index range scan starting right
+ * after the last row of the previous page, so page N costs the same as page 1 regardless of table size.
+ * <p>
+ * The continuation token handed to clients is the base64url encoding of the last row's key; it is only
+ * meaningful to the pagination it came from.
+ */
+public final class KeysetPagination<T> {
+
+    /** Entities extending {@link com.pluta.camera.entities.BaseEntity}. */
+    public static final KeysetPagination<OffsetDateTime> CREATED_AT =
+            new KeysetPagination<>("createdAt", OffsetDateTime::parse);
+
+    public static final KeysetPagination<LocalDateTime> ANALYSIS_DATE =
+            new KeysetPagination<>("analysisDate", LocalDateTime::parse);
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 500;
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+
+    private final String timeProperty;
+    private final Function<String, T> timeParser;
+    private final Sort sort;
+
+    private KeysetPagination(String timeProperty, Function<String, T> timeParser) {
+        this.timeProperty = timeProperty;
+        this.timeParser = timeParser;
+        this.sort = Sort.by(Sort.Order.desc(timeProperty), Sort.Order.desc(ID));
+    }
+
+    public <E> Window<E> scroll(JpaSpecificationExecutor<E> repository, Specification<E> spec,
+                                ScrollPosition position, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_SIZE);
+        return repository.findBy(spec, query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    public <E, D> CursorPageDTO<D> toPage(Window<E> window, Function<E, D> mapper) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+
+        return CursorPageDTO.<D>builder()
+                .content(window.stream().map(mapper).toList())
+                .size(window.size())
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public static <E> Specification<E> tenantAndBranch(Long tenantId, Long branchId) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("tenant").get(ID), tenantId),
+                cb.equal(root.get("branch").get(ID), branchId));
+    }
+
+    public static <E> Specification<E> belongsTo(String association, Long id) {
+        return (root, query, cb) -> cb.equal(root.get(association).get(ID), id);
+    }
+
+    private String encode(KeysetScrollPosition position) {
+        Map<String, Object> keys = position.getKeys();
+        String raw = keys.get(timeProperty) + SEPARATOR + keys.get(ID);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Position to continue from; the start for a missing cursor.
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by this pagination
+     */
+    public ScrollPosition position(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(timeProperty, timeParser.apply(raw.substring(0, split)));
+            keys.put(ID, Long.parseLong(raw.substring(split + 1)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
+    }
+}
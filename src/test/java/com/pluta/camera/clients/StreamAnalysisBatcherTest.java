@@ -0,0 +1,145 @@
+package com.pluta.camera.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluta.camera.configs.BlockingIoThreads;
+import com.pluta.camera.dtos.FrameAnalysisResultDTO;
+import com.pluta.camera.dtos.StreamAnalysisRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives {@link StreamAnalysisBatcher} through the real {@link StreamAnalysisClient}; the stub server answers
+ * each batch with one result per request, tagged with the request's camera.
+ */
+@SpringBootTest(classes = {InferenceServerStub.ClientConfig.class, StreamAnalysisBatcher.class, BlockingIoThreads.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "stream.analysis.batch.max-size=4",
+                "stream.analysis.batch.max-wait-ms=100",
+                "stream.analysis.batch.max-pending=4",
+                "stream.analysis.batch.sender-threads=1"
+        })
+class StreamAnalysisBatcherTest extends InferenceServerStub {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private StreamAnalysisBatcher batcher;
+
+    @BeforeEach
+    void echoCameras() {
+        handler = answering(requests -> resultsFor(requests, requests.size()));
+    }
+
+    @Test
+    void demultiplexesOneCallBackToEachCaller() throws Exception {
+        List<CompletableFuture<FrameAnalysisResultDTO>> futures = new ArrayList<>();
+        for (long camera = 1; camera <= 4; camera++) {
+            futures.add(batcher.submit(request(camera)));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(2, TimeUnit.SECONDS).getCameraId()).isEqualTo(i + 1);
+        }
+        assertThat(batchSizes).containsExactly(4);
+    }
+
+    @Test
+    void failsEveryCallerWhenTheResultCountDoesNotMatch() {
+        handler = answering(requests -> resultsFor(requests, requests.size() - 1));
+
+        List<CompletableFuture<FrameAnalysisResultDTO>> futures = new ArrayList<>();
+        for (long camera = 1; camera <= 4; camera++) {
+            futures.add(batcher.submit(request(camera)));
+        }
+
+        for (CompletableFuture<FrameAnalysisResultDTO> future : futures) {
+            assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("returned 3 results");
+        }
+    }
+
+    @Test
+    void flushesAPartialBatchOnceTheFirstRequestHasWaitedMaxWait() throws Exception {
+        long started = System.nanoTime();
+        FrameAnalysisResultDTO result = batcher.submit(request(9)).get(2, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(result.getCameraId()).isEqualTo(9);
+        assertThat(batchSizes).containsExactly(1);
+        // Held back for company until max-wait-ms ran out, not sent straight away
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void rejectsRequestsBeyondMaxPendingWhileSendersAreBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Handler echo = handler;
+        handler = (exchange, body) -> {
+            await(release);
+            echo.handle(exchange, body);
+        };
+
+        List<CompletableFuture<FrameAnalysisResultDTO>> accepted = new ArrayList<>();
+        int rejected = 0;
+        for (long camera = 1; camera <= 20; camera++) {
+            CompletableFuture<FrameAnalysisResultDTO> future = batcher.submit(request(camera));
+            if (future.isCompletedExceptionally()) {
+                assertThatThrownBy(future::join).hasCauseInstanceOf(RejectedExecutionException.class);
+                rejected++;
+            } else {
+                accepted.add(future);
+            }
+        }
+        release.countDown();
+
+        // One batch in the sender, one in the dispatcher sending it itself, max-pending queued: at most 12 fit
+        assertThat(rejected).isGreaterThanOrEqualTo(8);
+        for (CompletableFuture<FrameAnalysisResultDTO> future : accepted) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+    }
+
+    private Handler answering(Results results) {
+        return (exchange, body) -> {
+            JsonNode requests = MAPPER.readTree(body);
+            batchSizes.add(requests.size());
+            respond(exchange, 200, results.of(requests));
+        };
+    }
+
+    private static StreamAnalysisRequest request(long cameraId) {
+        return StreamAnalysisRequest.builder().streamUrl("rtsp://camera-" + cameraId).cameraId(cameraId).build();
+    }
+
+    private static String resultsFor(JsonNode requests, int count) {
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add("{\"cameraId\":" + requests.get(i).path("cameraId").asInt() + ",\"status\":\"OK\"}");
+        }
+        return "[" + String.join(",", results) + "]";
+    }
+
+    private interface Results {
+        String of(JsonNode requests);
+    }
+}
@@ -0,0 +1,154 @@
+package com.pluta.camera.clients;
+
+import com.pluta.camera.dtos.FrameAnalysisResultDTO;
+import com.pluta.camera.dtos.StreamAnalysisRequest;
+import com.pluta.camera.exceptions.RemoteAnalysisUnavailableException;
+import feign.FeignException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the real {@link StreamAnalysisClient} wiring against a local stub inference server.
+ */
+@SpringBootTest(classes = InferenceServerStub.ClientConfig.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "stream.analysis.client.read-timeout-ms=300",
+                "stream.analysis.client.deadline-ms=1000",
+                "stream.analysis.client.retry.max-attempts=5",
+                "stream.analysis.client.retry.initial-backoff-ms=20",
+                "stream.analysis.client.retry.max-backoff-ms=50",
+                "stream.analysis.client.bulkhead.max-concurrent-calls=2",
+                "stream.analysis.client.bulkhead.max-wait-ms=50",
+                "stream.analysis.client.circuit-breaker.failure-threshold=3",
+                "stream.analysis.client.circuit-breaker.open-ms=60000"
+        })
+class StreamAnalysisClientTest extends InferenceServerStub {
+
+    private static final String RESULT = "{\"cameraId\":7,\"tableId\":3,\"personsSitting\":2,\"status\":\"OK\"}";
+
+    @Autowired
+    private StreamAnalysisClient streamAnalysisClient;
+
+    @BeforeEach
+    void okByDefault() {
+        handler = (exchange, body) -> respond(exchange, 200, RESULT);
+    }
+
+    @Test
+    void reusesOneKeepAliveConnectionForSequentialCalls() {
+        for (int i = 0; i < 5; i++) {
+            FrameAnalysisResultDTO result = streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()).getBody();
+            assertThat(result.getPersonsSitting()).isEqualTo(2);
+        }
+
+        assertThat(hits).hasValue(5);
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void retriesTransientErrorsThenSucceeds() {
+        handler = (exchange, body) -> {
+            if (hits.get() <= 2) {
+                respond(exchange, 503, "{}");
+            } else {
+                respond(exchange, 200, RESULT);
+            }
+        };
+
+        FrameAnalysisResultDTO result = streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()).getBody();
+
+        assertThat(result.getTableId()).isEqualTo(3);
+        assertThat(hits).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        handler = (exchange, body) -> respond(exchange, 400, "{}");
+
+        assertThatThrownBy(() -> streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()))
+                .isInstanceOf(FeignException.BadRequest.class);
+        assertThat(hits).hasValue(1);
+    }
+
+    @Test
+    void slowServerIsCutOffAtTheCallDeadline() {
+        handler = (exchange, body) -> {
+            sleep(2_000);
+            respond(exchange, 200, RESULT);
+        };
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()))
+                .isInstanceOf(FeignException.class);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // 300 ms attempts inside a 1 s deadline: at most three attempts, well short of the 2 s response
+        assertThat(elapsedMs).isLessThan(1_500);
+        assertThat(hits.get()).isBetween(2, 3);
+    }
+
+    @Test
+    void bulkheadTurnsAwayCallsBeyondTheLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = (exchange, body) -> {
+            await(release);
+            respond(exchange, 200, RESULT);
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                calls.add(callers.submit(() -> streamAnalysisClient.analyzeStream(new StreamAnalysisRequest())));
+            }
+
+            // Rejections come back after max-wait-ms; admitted calls stay parked well inside their read timeout
+            Thread.sleep(150);
+            long finished = calls.stream().filter(Future::isDone).count();
+            release.countDown();
+
+            int rejected = 0;
+            for (Future<?> call : calls) {
+                try {
+                    call.get(2, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(RemoteAnalysisUnavailableException.class);
+                    rejected++;
+                }
+            }
+            assertThat(finished).isEqualTo(2);
+            assertThat(rejected).isEqualTo(2);
+            assertThat(hits).hasValue(2);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        handler = (exchange, body) -> respond(exchange, 500, "{}");
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()))
+                    .isInstanceOf(FeignException.InternalServerError.class);
+        }
+        assertThatThrownBy(() -> streamAnalysisClient.analyzeStream(new StreamAnalysisRequest()))
+                .isInstanceOf(RemoteAnalysisUnavailableException.class);
+
+        assertThat(hits).hasValue(3);
+    }
+}
@@ -0,0 +1,204 @@
+package com.pluta.camera.configs;
+
+import com.pluta.camera.context.TenantContext;
+import com.pluta.camera.context.TenantContextTaskDecorator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which executor each threading mode selects, and runs a blocking workload through the widget batch
+ * executor: each task waits on a simulated remote call, then does a short piece of JDBC work on a connection from
+ * a small Hikari pool. On Java 21 the virtual mode runs on real virtual threads; older JREs have none, so there
+ * the same thread-per-task executor runs on platform threads, which bounds concurrency the same way.
+ */
+class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int TASKS = 400;
+    private static final int POOL_THREADS = 8;
+    private static final int MAX_CONNECTIONS = 10;
+    private static final long REMOTE_CALL_MS = 20;
+    private static final long DATABASE_WORK_MS = 5;
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void openPool() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(MAX_CONNECTIONS);
+        config.setMinimumIdle(MAX_CONNECTIONS);
+        config.setConnectionTimeout(30_000);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @AfterEach
+    void closePool() {
+        dataSource.close();
+        TenantContext.clear();
+    }
+
+    @Test
+    void platformPoolCarriesTenantContextAndCapsConcurrency() throws Exception {
+        LoadResult result = run(executor(false));
+
+        assertThat(result.completed).isEqualTo(TASKS);
+        assertThat(result.tenantMismatches).isZero();
+        assertThat(result.peakTasks).isLessThanOrEqualTo(POOL_THREADS);
+    }
+
+    @Test
+    void virtualSwitchIsHonouredOnlyWhereTheJreHasVirtualThreads() {
+        boolean supported = Runtime.version().feature() >= 21;
+
+        assertThat(blockingIoThreads(true).isVirtual()).isEqualTo(supported);
+        assertThat(blockingIoThreads(false).isVirtual()).isFalse();
+    }
+
+    @Test
+    void executorFollowsTheThreadingMode() {
+        BlockingIoThreads blockingIoThreads = blockingIoThreads(true);
+
+        Executor executor = new AsyncConfig().widgetBatchTaskExecutor(POOL_THREADS, TASKS, blockingIoThreads);
+
+        if (blockingIoThreads.isVirtual()) {
+            assertThat(executor).isInstanceOf(SimpleAsyncTaskExecutor.class);
+        } else {
+            assertThat(executor).isInstanceOfSatisfying(ThreadPoolTaskExecutor.class, pool -> {
+                assertThat(pool.getCorePoolSize()).isEqualTo(POOL_THREADS);
+                assertThat(pool.getMaxPoolSize()).isEqualTo(POOL_THREADS);
+                assertThat(pool.getQueueCapacity()).isEqualTo(TASKS);
+            });
+        }
+    }
+
+    @Test
+    void threadPerTaskIsBoundedByHikariNotTheExecutor() throws Exception {
+        LoadResult platform = run(executor(false));
+        LoadResult virtual = run(threadPerTaskExecutor());
+
+        assertThat(virtual.completed).isEqualTo(TASKS);
+        assertThat(virtual.tenantMismatches).isZero();
+        // The executor no longer caps concurrency; the connection pool does, and it runs full
+        assertThat(virtual.peakTasks).isGreaterThan(MAX_CONNECTIONS);
+        assertThat(virtual.peakConnections).isEqualTo(MAX_CONNECTIONS);
+
+        log.info("{} tasks: {} pool threads took {} ms, {} took {} ms", TASKS, POOL_THREADS, platform.elapsedMs,
+                blockingIoThreads(true).isVirtual() ? "virtual threads" : "thread-per-task", virtual.elapsedMs);
+        // Loose on purpose: tasks spend most of their time in the remote call, which only the pool serialises
+        assertThat(virtual.elapsedMs).isLessThan(platform.elapsedMs);
+    }
+
+    private static BlockingIoThreads blockingIoThreads(boolean virtualThreads) {
+        return new BlockingIoThreads(new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", String.valueOf(virtualThreads)));
+    }
+
+    private static Executor executor(boolean virtualThreads) {
+        BlockingIoThreads blockingIoThreads = blockingIoThreads(virtualThreads);
+        assertThat(blockingIoThreads.isVirtual()).isEqualTo(virtualThreads);
+        return new AsyncConfig().widgetBatchTaskExecutor(POOL_THREADS, TASKS, blockingIoThreads);
+    }
+
+    /**
+     * The virtual-mode widget executor where the JRE supports it, otherwise the same executor on platform threads.
+     */
+    private static Executor threadPerTaskExecutor() {
+        BlockingIoThreads blockingIoThreads = blockingIoThreads(true);
+        if (blockingIoThreads.isVirtual()) {
+            return new AsyncConfig().widgetBatchTaskExecutor(POOL_THREADS, TASKS, blockingIoThreads);
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("WidgetBatch-");
+        executor.setTaskDecorator(new TenantContextTaskDecorator());
+        return executor;
+    }
+
+    private LoadResult run(Executor executor) throws Exception {
+        LoadResult result = new LoadResult();
+        AtomicInteger tasks = new AtomicInteger();
+        AtomicInteger connections = new AtomicInteger();
+        AtomicInteger peakTasks = new AtomicInteger();
+        AtomicInteger peakConnections = new AtomicInteger();
+        AtomicInteger mismatches = new AtomicInteger();
+
+        long started = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            long tenantId = i;
+            TenantContext.setTenantInfo(tenantId, tenantId);
+            futures.add(CompletableFuture.runAsync(() -> {
+                peakTasks.accumulateAndGet(tasks.incrementAndGet(), Math::max);
+                try {
+                    if (!Long.valueOf(tenantId).equals(TenantContext.getTenantId())) {
+                        mismatches.incrementAndGet();
+                    }
+                    Thread.sleep(REMOTE_CALL_MS);
+                    try (Connection connection = dataSource.getConnection()) {
+                        peakConnections.accumulateAndGet(connections.incrementAndGet(), Math::max);
+                        try {
+                            query(connection, tenantId);
+                            Thread.sleep(DATABASE_WORK_MS);
+                        } finally {
+                            connections.decrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    tasks.decrementAndGet();
+                }
+            }, executor));
+        }
+        TenantContext.clear();
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        result.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        result.completed = (int) futures.stream().filter(future -> !future.isCompletedExceptionally()).count();
+        result.peakTasks = peakTasks.get();
+        result.peakConnections = peakConnections.get();
+        result.tenantMismatches = mismatches.get();
+        return result;
+    }
+
+    private static void query(Connection connection, long value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            statement.setLong(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertThat(resultSet.next()).isTrue();
+            }
+        }
+    }
+
+    private static final class LoadResult {
+        private int completed;
+        private int peakTasks;
+        private int peakConnections;
+        private int tenantMismatches;
+        private long elapsedMs;
+    }
+}
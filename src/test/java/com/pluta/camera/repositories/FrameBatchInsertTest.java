@@ -0,0 +1,77 @@
+package com.pluta.camera.repositories;
+
+import com.pluta.camera.entities.Branch;
+import com.pluta.camera.entities.Camera;
+import com.pluta.camera.entities.Frame;
+import com.pluta.camera.entities.TableEntity;
+import com.pluta.camera.entities.Tenant;
+import com.pluta.camera.entities.Zone;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FrameBatchInsertTest {
+
+    private static final int FRAMES = 1_000;
+
+    @Autowired
+    private FrameRepository frameRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void savesThousandFramesWithPooledIdsAndBatchedInserts() {
+        Tenant tenant = entityManager.persist(Tenant.builder()
+                .code("T1").englishName("Tenant").arabicName("Tenant").build());
+        Branch branch = entityManager.persist(Branch.builder()
+                .tenant(tenant).code("B1").englishName("Branch").arabicName("Branch")
+                .country("JO").city("Amman").build());
+        Zone zone = entityManager.persist(Zone.builder()
+                .tenant(tenant).branch(branch).code("Z1").build());
+        Camera camera = entityManager.persist(Camera.builder()
+                .tenant(tenant).branch(branch).zone(zone).code("C1").build());
+        TableEntity table = entityManager.persist(TableEntity.builder()
+                .tenant(tenant).branch(branch).zone(zone).camera(camera).tableNumber(1).build());
+        entityManager.flush();
+
+        List<Frame> frames = new ArrayList<>(FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            frames.add(Frame.builder()
+                    .tenant(tenant)
+                    .branch(branch)
+                    .table(table)
+                    .frameOffsetSeconds((double) i)
+                    .confidenceThreshold(0.4)
+                    .personsDetected(i % 5)
+                    .build());
+        }
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        frameRepository.saveAll(frames);
+        entityManager.flush();
+
+        // frame_seq hands out 200 ids per call: 5 blocks plus the pooled optimizer's initial call.
+        // All inserts go through one batched INSERT statement (2,000 statements without pooling and batching).
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(FRAMES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(7);
+    }
+}
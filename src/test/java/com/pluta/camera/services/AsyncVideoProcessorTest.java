@@ -0,0 +1,104 @@
+package com.pluta.camera.services;
+
+import com.pluta.camera.services.detector.RawFrame;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the extraction command decodes the frame shown at each sampled offset, using a generated clip
+ * whose brightness encodes its own timestamp (20 grey levels per second). Needs ffmpeg on the PATH.
+ */
+class AsyncVideoProcessorTest {
+
+    private static final int LEVELS_PER_SECOND = 20;
+    private static final int TOLERANCE = 2;
+
+    @TempDir
+    static Path directory;
+
+    private static Path clip;
+
+    @BeforeAll
+    static void generateClip() throws Exception {
+        assumeTrue(ffmpegAvailable(), "ffmpeg is not on the PATH");
+        clip = directory.resolve("clock.mkv");
+        run(List.of("ffmpeg", "-loglevel", "error", "-f", "lavfi", "-i",
+                "nullsrc=s=64x36:r=10:d=10,format=gray,geq=lum='T*" + LEVELS_PER_SECOND + "'",
+                "-c:v", "ffv1", clip.toString()));
+    }
+
+    @Test
+    void framesAreTakenAtTheirOffsets() throws Exception {
+        List<Integer> levels = extract(0, 2, 5);
+
+        assertThat(levels).hasSize(5);
+        for (int k = 0; k < levels.size(); k++) {
+            assertThat(levels.get(k)).isCloseTo(k * 2 * LEVELS_PER_SECOND, within(TOLERANCE));
+        }
+    }
+
+    @Test
+    void resumedExtractionStaysOnTheSameGrid() throws Exception {
+        List<Integer> levels = extract(4, 2, 3);
+
+        assertThat(levels).hasSize(3);
+        for (int k = 0; k < levels.size(); k++) {
+            assertThat(levels.get(k)).isCloseTo((4 + k * 2) * LEVELS_PER_SECOND,
+                    within(TOLERANCE));
+        }
+    }
+
+    /**
+     * Runs the processor's in-memory extraction command and returns the grey level at the centre of each frame.
+     */
+    private static List<Integer> extract(double seekSeconds, int step, int frames) throws Exception {
+        List<String> command = AsyncVideoProcessor.extractionCommand(clip.toString(), seekSeconds, step, frames, true);
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+
+        int width = 1920;
+        int height = 1080;
+        int frameSize = RawFrame.frameSize(width, height);
+        int centre = ((height / 2) * width + width / 2) * RawFrame.CHANNELS;
+        List<Integer> levels = new ArrayList<>();
+        try (InputStream in = process.getInputStream()) {
+            byte[] frame;
+            while ((frame = in.readNBytes(frameSize)).length == frameSize) {
+                levels.add(frame[centre] & 0xFF);
+            }
+        }
+        assertThat(process.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).isZero();
+        return levels;
+    }
+
+    private static boolean ffmpegAvailable() {
+        try {
+            return run(List.of("ffmpeg", "-version")) == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int run(List<String> command) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            return process.waitFor(60, TimeUnit.SECONDS) ? process.exitValue() : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
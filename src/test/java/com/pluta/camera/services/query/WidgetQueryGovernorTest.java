@@ -0,0 +1,145 @@
+package com.pluta.camera.services.query;
+
+import com.pluta.camera.dtos.QueryResultDTO;
+import com.pluta.camera.entities.Tenant;
+import com.pluta.camera.entities.Widget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the governor on H2 in Oracle mode with Hibernate's Oracle dialect, so generated SQL and the cost check
+ * take their Oracle paths. H2 has no EXPLAIN PLAN, so the plan lookup is stubbed through {@link JdbcTemplate}.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:widgets;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.OracleDialect",
+        "spring.jpa.properties.jakarta.persistence.database-product-name=Oracle",
+        "spring.jpa.properties.jakarta.persistence.database-major-version=19",
+        "spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false",
+        "widget.governance.max-cost=1000",
+        "widget.governance.max-rows=100"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({WidgetQueryGovernor.class, WidgetQueryExecutor.class, WidgetQueryGovernorTest.MetricsConfig.class})
+class WidgetQueryGovernorTest {
+
+    private static final String TENANT_IDS = "select t.id as id from Tenant t where t.code like :prefix order by t.id";
+
+    @Autowired
+    private WidgetQueryGovernor governor;
+
+    @Autowired
+    private WidgetQueryExecutor executor;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void tenants() {
+        for (int i = 1; i <= 5; i++) {
+            entityManager.persist(Tenant.builder()
+                    .code("T" + i).englishName("Tenant " + i).arabicName("Tenant " + i).build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void namedBindsRenamesPlaceholdersOutsideLiterals() {
+        assertThat(WidgetQueryGovernor.namedBinds(
+                "select * from t where a = ? and b = '?' and c in (?, ?) and d = 'it''s ?'"))
+                .isEqualTo("select * from t where a = :b1 and b = '?' and c in (:b2, :b3) and d = 'it''s ?'");
+    }
+
+    @Test
+    void truncatesResultsAtTheRowCap() {
+        QueryResultDTO capped = executor.execute(plan(3), Map.of("prefix", "T%"), null, null);
+        QueryResultDTO exact = executor.execute(plan(5), Map.of("prefix", "T%"), null, null);
+
+        assertThat(capped.getRows()).hasSize(3);
+        assertThat(capped.getTruncated()).isTrue();
+        assertThat(exact.getRows()).hasSize(5);
+        assertThat(exact.getTruncated()).isFalse();
+    }
+
+    @Test
+    void widgetLimitsFallBackToTheConfiguredDefaults() {
+        Widget widget = Widget.builder().maxRows(0).fetchSize(50).build();
+
+        WidgetQueryLimits limits = governor.limits(widget);
+
+        assertThat(limits.maxRows()).isEqualTo(100);
+        assertThat(limits.fetchSize()).isEqualTo(50);
+    }
+
+    @Test
+    void explainsTheCapturedSqlWithoutRunningIt() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class))).thenReturn(10L);
+
+        governor.checkCost("tenants", TENANT_IDS, Set.of("prefix"));
+
+        ArgumentCaptor<String> explained = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).execute(explained.capture());
+        assertThat(explained.getValue())
+                .startsWith("EXPLAIN PLAN SET STATEMENT_ID = 'widget-")
+                .containsIgnoringCase("from tenant")
+                .contains(":b1")
+                .doesNotContain("?");
+        verify(jdbcTemplate).update(eq("DELETE FROM plan_table WHERE statement_id = ?"), any(Object[].class));
+    }
+
+    @Test
+    void rejectsQueriesAboveTheCostLimit() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class))).thenReturn(5_000L);
+
+        assertThatThrownBy(() -> governor.checkCost("tenants", TENANT_IDS, Set.of("prefix")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("estimated cost 5000 exceeds the limit of 1000");
+    }
+
+    private static WidgetQueryPlan plan(int maxRows) {
+        return new WidgetQueryPlan("tenants", 1, TENANT_IDS, Set.of("prefix"), List.of("id"), null,
+                new WidgetQueryLimits(5, maxRows, 10));
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}